@@ -1,16 +1,26 @@
 package org.netcracker.learningcenter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.netcracker.learningcenter.kafka.administrator.DatabaseAdministratorConsumer;
 import org.netcracker.learningcenter.kafka.dataminer.DataMinerConsumer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Properties;
 
 /**
  * Main application class. Used to run app
@@ -19,8 +29,7 @@ import org.springframework.kafka.annotation.KafkaListener;
  */
 @EnableKafka
 @SpringBootApplication
-public class Application {
-    private static final Logger LOG = LogManager.getLogger();
+public class Application implements KafkaListenerConfigurer {
 
     /**
      * DataMinerConsumer instance. It is used to init search after getting topic message
@@ -32,17 +41,38 @@ public class Application {
      */
     private final DatabaseAdministratorConsumer databaseAdministratorConsumer;
 
+    /**
+     * Retry topics of the requests
+     */
+    @Value("#{'${kafka.data-miner.request.retry-topics}'.split(',')}")
+    private List<String> retryTopics;
+
+    /**
+     * Max number of records a request listener receives in one poll
+     */
+    @Value("${kafka.data-miner.request-listener.max-poll-records}")
+    private String requestMaxPollRecords;
+
+    /**
+     * Container factory of the listeners that acknowledge records themselves
+     */
+    private final KafkaListenerContainerFactory<?> manualAckContainerFactory;
+
     /**
      * Creates an Application instance
      *
      * @param dataMinerConsumer DataMiner consumer instance to set
      * @param databaseAdministratorConsumer DatabaseAdministrator consumer instance to set
+     * @param manualAckContainerFactory container factory of the listeners that acknowledge records themselves
      */
     @Autowired
     public Application(DataMinerConsumer dataMinerConsumer,
-                       DatabaseAdministratorConsumer databaseAdministratorConsumer) {
+                       DatabaseAdministratorConsumer databaseAdministratorConsumer,
+                       @Qualifier("manualAckKafkaListenerContainerFactory")
+                               KafkaListenerContainerFactory<?> manualAckContainerFactory) {
         this.dataMinerConsumer = dataMinerConsumer;
         this.databaseAdministratorConsumer = databaseAdministratorConsumer;
+        this.manualAckContainerFactory = manualAckContainerFactory;
     }
 
     /**
@@ -54,30 +84,67 @@ public class Application {
     }
 
     /**
-     * Listens to relevant topic to get record(message) and run Data Miner
+     * Listens to relevant topic to get record(message) and run Data Miner. The record is acknowledged when its
+     * result has been sent
      *
      * @param record record from ui
+     * @param acknowledgment acknowledgment of the record
      */
-    @KafkaListener(topics="${kafka.data-miner.request}")
-    public void kafkaDataMinerListener(ConsumerRecord<String, String> record){
-        try {
-            dataMinerConsumer.searchAndCollect(record);
-        } catch (JsonProcessingException e) {
-            LOG.error("Something bad encountered when processing JSON content", e);
-        }
+    @KafkaListener(id = DataMinerConsumer.LISTENER_ID, idIsGroup = false, topics = "${kafka.data-miner.request}",
+            containerFactory = "manualAckKafkaListenerContainerFactory",
+            concurrency = "${kafka.data-miner.request-listener.concurrency}",
+            properties = "max.poll.records:${kafka.data-miner.request-listener.max-poll-records}")
+    public void kafkaDataMinerListener(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        dataMinerConsumer.searchAndCollect(record, acknowledgment);
     }
 
     /**
-     * Listens to relevant topic to get record(message) and interacts with database (performs CRUD operations)
+     * Registers a listener of every retry topic. Every retry topic has its own consumer, so a record waiting for
+     * its delay in one topic does not hold back records of the other topics
      *
-     * @param record record from ui
+     * @param registrar registrar of the listener endpoints
      */
-    @KafkaListener(topics="${kafka.data-miner.admin}")
-    public void kafkaCredentialsListener(ConsumerRecord<String, String> record){
-        try {
-            databaseAdministratorConsumer.interactWithDatabase(record);
-        } catch (JsonProcessingException e) {
-            LOG.error("Something bad encountered when processing JSON content", e);
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        Method listener = ReflectionUtils.findMethod(Application.class, "kafkaDataMinerRetryListener",
+                ConsumerRecord.class, Acknowledgment.class);
+        DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        handlerMethodFactory.afterPropertiesSet();
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty("max.poll.records", requestMaxPollRecords);
+
+        for (int i = 0; i < retryTopics.size(); i++) {
+            MethodKafkaListenerEndpoint<String, String> endpoint = new MethodKafkaListenerEndpoint<>();
+            endpoint.setId(DataMinerConsumer.getRetryListenerId(i));
+            endpoint.setTopics(retryTopics.get(i));
+            endpoint.setBean(this);
+            endpoint.setMethod(listener);
+            endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+            endpoint.setConsumerProperties(consumerProperties);
+            registrar.registerEndpoint(endpoint, manualAckContainerFactory);
         }
     }
+
+    /**
+     * Listens to the retry topics to get failed records(messages) and run Data Miner again when their delay has
+     * expired. The listeners are registered by {@link #configureKafkaListeners}
+     *
+     * @param record record from a retry topic
+     * @param acknowledgment acknowledgment of the record
+     */
+    public void kafkaDataMinerRetryListener(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        dataMinerConsumer.retry(record, acknowledgment);
+    }
+
+    /**
+     * Listens to relevant topic to get a batch of records(messages) and interacts with database (performs CRUD
+     * operations)
+     *
+     * @param records records from ui
+     */
+    @KafkaListener(topics = "${kafka.data-miner.admin}", containerFactory = "batchKafkaListenerContainerFactory",
+            properties = "max.poll.records:${kafka.data-miner.admin-listener.max-poll-records}")
+    public void kafkaCredentialsListener(List<ConsumerRecord<String, String>> records) {
+        databaseAdministratorConsumer.interactWithDatabase(records);
+    }
 }
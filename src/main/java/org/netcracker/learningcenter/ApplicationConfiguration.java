@@ -2,11 +2,10 @@ package org.netcracker.learningcenter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jasypt.util.text.AES256TextEncryptor;
-import org.netcracker.learningcenter.confluence.ConfluenceClient;
+import org.netcracker.learningcenter.utils.KeywordQueryBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Scope;
 
 /**
  * Configuration class for the application
@@ -22,6 +21,18 @@ public class ApplicationConfiguration {
     @Value("${jasypt.password}")
     private String jasyptPassword;
 
+    /**
+     * Whether search keywords are combined into one OR query
+     */
+    @Value("${search.keywords.combine}")
+    private boolean combineKeywords;
+
+    /**
+     * Max length of one combined keyword query
+     */
+    @Value("${search.keywords.max-query-length}")
+    private int maxKeywordQueryLength;
+
     /**
      * @return object mapper for JsonNode mapping
      */
@@ -40,9 +51,11 @@ public class ApplicationConfiguration {
         return basicTextEncryptor;
     }
 
+    /**
+     * @return builder of keyword conditions for Jira and Confluence searches
+     */
     @Bean
-    @Scope(value = "prototype")
-    public ConfluenceClient confluenceClient(String url, String token) {
-        return new ConfluenceClient(url, token, objectMapper());
+    public KeywordQueryBuilder keywordQueryBuilder() {
+        return new KeywordQueryBuilder(combineKeywords, maxKeywordQueryLength);
     }
 }
@@ -1,18 +1,16 @@
 package org.netcracker.learningcenter.confluence;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.tomcat.util.buf.StringUtils;
 import org.netcracker.learningcenter.utils.ConfluenceUtils;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.netcracker.learningcenter.utils.KeywordQueryBuilder;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.netty.http.client.HttpClient;
-import reactor.netty.resources.ConnectionProvider;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 
@@ -23,51 +21,87 @@ public class ConfluenceClient {
     public static final String BODY = "body.storage";
     public static final String LAST_UPDATED = "history.lastUpdated";
     public static final String COMMENTS = "children.comment.body.storage";
+    public static final int PAGE_LIMIT = 50;
     private static final Logger LOG = LogManager.getLogger(ConfluenceClient.class);
     private final WebClient confluenceClient;
-    private final ObjectMapper mapper;
     private final String url;
-    private String token;
+    private final KeywordQueryBuilder keywordQueryBuilder;
 
-    public ConfluenceClient(String baseURL, String token, ObjectMapper mapper) {
-        this.mapper = mapper;
-        confluenceClient = WebClient.builder()
-                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(ConnectionProvider.newConnection())))
-                .baseUrl(baseURL)
-                .defaultHeaders(httpHeaders -> httpHeaders.setBasicAuth(token))
-                .build();
+    /**
+     * Creates a ConfluenceClient instance. Use {@link ConfluenceClientFactory} to get a client with a pooled WebClient
+     *
+     * @param baseURL Confluence URL
+     * @param confluenceClient WebClient authorized on the Confluence server
+     * @param keywordQueryBuilder builder of keyword conditions
+     */
+    ConfluenceClient(String baseURL, WebClient confluenceClient, KeywordQueryBuilder keywordQueryBuilder) {
+        this.confluenceClient = confluenceClient;
         this.url = baseURL;
-        this.token = token;
+        this.keywordQueryBuilder = keywordQueryBuilder;
     }
 
-    public List<ConfluencePageModel> findByCQL(String cql) throws JsonProcessingException {
+    public List<ConfluencePageModel> findByCQL(String cql) {
+        return searchByCQL(cql).collectList().block();
+    }
+
+    public List<ConfluencePageModel> findByKeywords(List<String> keywords, String startDate) {
+        return searchByKeywords(keywords, startDate).collectList().block();
+    }
+
+    /**
+     * Searches pages using CQL. All result pages are followed through their next links, and the found
+     * Confluence-pages are emitted as soon as their result page arrives
+     *
+     * @param cql CQL to search Confluence-pages
+     * @return found Confluence-pages
+     */
+    public Flux<ConfluencePageModel> searchByCQL(String cql) {
         LOG.info("Search in {} using cql {}", url, cql);
-        return ConfluenceUtils.jsonToPageModelList(executeSearchUsingCQL(cql), url);
+        return executeSearchUsingCQL(cql)
+                .expand(this::executeNextSearch)
+                .flatMapIterable(page -> ConfluenceUtils.jsonToPageModelList(page, url));
     }
 
-    public List<ConfluencePageModel> findByKeywords(List<String> keywords, String startDate) throws JsonProcessingException {
-        List<ConfluencePageModel> models = new ArrayList<>();
+    /**
+     * Searches pages that contain any of the keywords. Pages found by several queries are emitted once
+     *
+     * @param keywords keywords to search for
+     * @param startDate earliest creation date of the pages, empty to search all pages
+     * @return found Confluence-pages
+     */
+    public Flux<ConfluencePageModel> searchByKeywords(List<String> keywords, String startDate) {
         String cqlFilter = "";
         if (!startDate.isEmpty()) {
-            cqlFilter += "and created>=" + startDate;
-        }
-        for (String word : keywords) {
-            String cql = "text~\"" + word + "\"" + cqlFilter;
-            LOG.info("Search in {} using keyword {} and filter {}", url, word, startDate);
-            models.addAll(ConfluenceUtils.jsonToPageModelList(executeSearchUsingCQL(cql), url));
+            cqlFilter += " and created>=" + startDate;
         }
-        return models;
+        String filter = cqlFilter;
+        return Flux.fromIterable(keywordQueryBuilder.build(keywords, "text~"))
+                .concatMap(condition -> searchByCQL(condition + filter))
+                .distinct(ConfluencePageModel::getWebLink);
     }
 
-    private JsonNode executeSearchUsingCQL(String cql) throws JsonProcessingException {
-        return mapper.readTree(confluenceClient.get()
+    private Mono<JsonNode> executeSearchUsingCQL(String cql) {
+        return confluenceClient.get()
                 .uri(uriBuilder -> uriBuilder.path(CQL_SEARCH)
                         .queryParam(CQL, cql)
+                        .queryParam(LIMIT, PAGE_LIMIT)
                         .queryParam(EXPAND, buildExpandParam(BODY, LAST_UPDATED, COMMENTS))
                         .build())
                 .retrieve()
-                .bodyToMono(String.class)
-                .block());
+                .bodyToMono(JsonNode.class);
+    }
+
+    private Mono<JsonNode> executeNextSearch(JsonNode page) {
+        JsonNode links = page.path(LINKS_PATH);
+        String next = links.path(NEXT_PATH).asText();
+        if (next.isEmpty()) {
+            return Mono.empty();
+        }
+        String base = links.path(BASE_PATH).asText(url);
+        return confluenceClient.get()
+                .uri(URI.create(base + next))
+                .retrieve()
+                .bodyToMono(JsonNode.class);
     }
 
     private String buildExpandParam(String... params) {
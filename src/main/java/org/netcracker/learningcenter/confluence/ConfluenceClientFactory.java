@@ -1,14 +1,147 @@
 package org.netcracker.learningcenter.confluence;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.netcracker.learningcenter.utils.KeywordQueryBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates Confluence clients. WebClients are cached by base URL and token and share one pooled connection
+ * provider, so the connections (and their TLS sessions) are reused between requests
+ */
 @Component
-public class ConfluenceClientFactory  {
+public class ConfluenceClientFactory {
+
+    /**
+     * Max size of a buffered Confluence response (expanded pages contain bodies and comments)
+     */
+    private static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024;
+
+    private final ObjectMapper mapper;
+
+    private final KeywordQueryBuilder keywordQueryBuilder;
+
+    /**
+     * Connection pool shared by all Confluence WebClients
+     */
+    private final ConnectionProvider connectionProvider;
+
+    /**
+     * HttpClient on top of the shared connection pool
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * Cached WebClients, the least recently used one is dropped when the cache is full
+     */
+    private final Map<ClientKey, WebClient> webClients;
+
+    /**
+     * Creates a ConfluenceClientFactory instance
+     *
+     * @param mapper current ObjectMapper instance
+     * @param keywordQueryBuilder builder of keyword conditions for Confluence searches
+     * @param maxConnections max number of connections to every Confluence server
+     * @param maxIdleTime time (in seconds) after which an idle connection is closed
+     * @param responseTimeout response timeout (in seconds)
+     * @param maxClients max number of cached WebClients
+     */
     @Autowired
-    private ObjectMapper mapper;
-    public ConfluenceClient createConfluenceClient(String url,String token){
-        return new ConfluenceClient(url,token,mapper);
+    public ConfluenceClientFactory(ObjectMapper mapper, KeywordQueryBuilder keywordQueryBuilder,
+                                   @Value("${confluence.http.max-connections}") int maxConnections,
+                                   @Value("${confluence.http.max-idle-time}") long maxIdleTime,
+                                   @Value("${confluence.http.response-timeout}") long responseTimeout,
+                                   @Value("${confluence.http.max-clients}") int maxClients) {
+        this.mapper = mapper;
+        this.keywordQueryBuilder = keywordQueryBuilder;
+        this.connectionProvider = ConnectionProvider.builder("confluence")
+                .maxConnections(maxConnections)
+                .maxIdleTime(Duration.ofSeconds(maxIdleTime))
+                .evictInBackground(Duration.ofSeconds(maxIdleTime))
+                .build();
+        this.httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofSeconds(responseTimeout));
+        this.webClients = new LinkedHashMap<ClientKey, WebClient>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ClientKey, WebClient> eldest) {
+                return size() > maxClients;
+            }
+        };
+    }
+
+    /**
+     * Creates a Confluence client on top of the cached WebClient of the server and token
+     *
+     * @param url Confluence URL
+     * @param token Confluence token
+     * @return Confluence client
+     */
+    public ConfluenceClient createConfluenceClient(String url, String token) {
+        return new ConfluenceClient(url, getWebClient(url, token), keywordQueryBuilder);
+    }
+
+    private WebClient getWebClient(String url, String token) {
+        ClientKey key = new ClientKey(url, token);
+        synchronized (webClients) {
+            return webClients.computeIfAbsent(key, k -> WebClient.builder()
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .codecs(configurer -> {
+                        configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(mapper));
+                        configurer.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_SIZE);
+                    })
+                    .baseUrl(url)
+                    .defaultHeaders(httpHeaders -> httpHeaders.setBasicAuth(token))
+                    .build());
+        }
+    }
+
+    /**
+     * Closes all pooled connections
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (webClients) {
+            webClients.clear();
+        }
+        connectionProvider.dispose();
+    }
+
+    /**
+     * Key of a cached WebClient
+     */
+    private static final class ClientKey {
+        private final String url;
+        private final String token;
+
+        private ClientKey(String url, String token) {
+            this.url = url;
+            this.token = token;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ClientKey clientKey = (ClientKey) o;
+            return url.equals(clientKey.url) && token.equals(clientKey.token);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, token);
+        }
     }
 }
@@ -3,12 +3,22 @@ package org.netcracker.learningcenter.controllers;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.netcracker.learningcenter.exceptions.ResourceNotFoundException;
 import org.netcracker.learningcenter.services.dataminer.DataMiner;
+import org.netcracker.learningcenter.services.dataminer.DataMinerJob;
+import org.netcracker.learningcenter.services.dataminer.DataMinerJobRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller class for data detection and collection using Elasticsearch database
  *
@@ -23,21 +33,69 @@ public class DataMinerController {
      */
     private final DataMiner dataMiner;
 
+    /**
+     * Registry of the collection jobs
+     */
+    private final DataMinerJobRegistry jobRegistry;
+
     /**
      * Creates a DataMinerController instance
      */
     @Autowired
-    public DataMinerController(DataMiner dataMiner) {
+    public DataMinerController(DataMiner dataMiner, DataMinerJobRegistry jobRegistry) {
         this.dataMiner = dataMiner;
+        this.jobRegistry = jobRegistry;
     }
 
     /**
-     * Initializes data search and collection
+     * Initializes data search and collection. The collection runs in the background, the returned job contains
+     * the id of the request
      *
      * @param jsonNode JSON with required fields
+     * @return started job, or 503 if too many jobs are waiting to be executed
      */
     @PostMapping(value = "/collect", consumes = "application/json", produces = "application/json")
-    public JsonNode searchAndCollect(@RequestBody JsonNode jsonNode) throws ResourceNotFoundException {
-        return dataMiner.searchAndCollect(jsonNode);
+    public ResponseEntity<DataMinerJob> searchAndCollect(@RequestBody JsonNode jsonNode)
+            throws ResourceNotFoundException {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(dataMiner.startCollection(jsonNode));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * @return all known collection jobs
+     */
+    @GetMapping(value = "/jobs", produces = "application/json")
+    public List<DataMinerJob> getJobs() {
+        return jobRegistry.getJobs();
+    }
+
+    /**
+     * Gets status, progress and result of the collection job
+     *
+     * @param requestId id of the request
+     * @return job of the request, or 404 if there is no such job
+     */
+    @GetMapping(value = "/jobs/{requestId}", produces = "application/json")
+    public ResponseEntity<DataMinerJob> getJob(@PathVariable String requestId) {
+        DataMinerJob job = jobRegistry.getJob(requestId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    /**
+     * Cancels the collection job
+     *
+     * @param requestId id of the request
+     * @return cancelled job, 404 if there is no such job, or 409 if the job has already finished
+     */
+    @DeleteMapping(value = "/jobs/{requestId}", produces = "application/json")
+    public ResponseEntity<DataMinerJob> cancelJob(@PathVariable String requestId) {
+        DataMinerJob job = jobRegistry.getJob(requestId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return job.cancel() ? ResponseEntity.ok(job) : ResponseEntity.status(HttpStatus.CONFLICT).body(job);
     }
-}
\ No newline at end of file
+}
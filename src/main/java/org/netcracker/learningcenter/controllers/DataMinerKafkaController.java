@@ -5,16 +5,22 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.netcracker.learningcenter.exceptions.ResourceNotFoundException;
 import org.netcracker.learningcenter.services.dataminer.DataMiner;
+import org.netcracker.learningcenter.services.dataminer.DataMinerJob;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller class for testing DataMiner's Kafka producer message generating
  *
@@ -28,7 +34,7 @@ public class DataMinerKafkaController {
     /**
      * Topic with results from DataMiner
      */
-    @Value("kafka.data-miner.results")
+    @Value("${kafka.data-miner.results}")
     private String resultsTopic;
 
     /**
@@ -51,14 +57,31 @@ public class DataMinerKafkaController {
     private KafkaTemplate<String, JsonNode> kafkaTemplate;
 
     /**
-     * Initializes data search and collection. Sends message to Kafka topic "collecting.data-miner.results"
+     * Initializes data search and collection in the background. Sends message to Kafka topic
+     * "collecting.data-miner.results" when the collection has completed
      *
      * @param jsonNode JSON with required fields
+     * @return started job, or 503 if too many jobs are waiting to be executed
      * @throws ResourceNotFoundException if there is no required JsonNode field
      */
     @PostMapping(value = "/message", consumes = "application/json", produces = "application/json")
-    public JsonNode sendMessage(JsonNode jsonNode) throws ResourceNotFoundException {
-        JsonNode dataMinerDtoAsJsonNode = dataMiner.searchAndCollect(jsonNode);
+    public ResponseEntity<DataMinerJob> sendMessage(@RequestBody JsonNode jsonNode) throws ResourceNotFoundException {
+        DataMinerJob job;
+        try {
+            job = dataMiner.startCollection(jsonNode);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        job.getCompletion().thenAccept(this::send);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * Sends the result of the collection to Kafka topic "collecting.data-miner.results"
+     *
+     * @param dataMinerDtoAsJsonNode result of the collection
+     */
+    private void send(JsonNode dataMinerDtoAsJsonNode) {
         ListenableFuture<SendResult<String, JsonNode>> userFuture =
                 kafkaTemplate.send(resultsTopic, dataMinerDtoAsJsonNode);
         userFuture.addCallback(new ListenableFutureCallback<SendResult<String, JsonNode>>() {
@@ -72,6 +95,5 @@ public class DataMinerKafkaController {
                 LOG.error("Unable to send message=[{}] due to : {}", dataMinerDtoAsJsonNode.toString(), throwable.getMessage());
             }
         });
-        return dataMinerDtoAsJsonNode;
     }
 }
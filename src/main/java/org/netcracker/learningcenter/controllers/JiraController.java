@@ -2,8 +2,11 @@ package org.netcracker.learningcenter.controllers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import org.netcracker.learningcenter.exceptions.ResourceNotFoundException;
+import org.netcracker.learningcenter.jira.JiraClientRegistry;
+import org.netcracker.learningcenter.jira.JiraClientRegistryStats;
 import org.netcracker.learningcenter.jira.JiraClientWorker;
 import org.netcracker.learningcenter.jira.SimpleIssue;
+import org.netcracker.learningcenter.utils.KeywordQueryBuilder;
 import org.netcracker.learningcenter.utils.Validations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -60,12 +63,32 @@ public class JiraController {
     @Value("${jira.url}")
     private String jiraUrl;
 
+    /**
+     * Max number of Jira-issues whose comments are fetched at the same time
+     */
+    @Value("${jira.search.comment-fetch-parallelism}")
+    private int commentFetchParallelism;
+
+    /**
+     * Registry of reusable Jira clients
+     */
+    private final JiraClientRegistry jiraClientRegistry;
+
+    /**
+     * Builder of keyword conditions
+     */
+    private final KeywordQueryBuilder keywordQueryBuilder;
+
     /**
      * Creates JiraController instance
+     *
+     * @param jiraClientRegistry current JiraClientRegistry instance
+     * @param keywordQueryBuilder current KeywordQueryBuilder instance
      */
     @Autowired
-    public JiraController() {
-
+    public JiraController(JiraClientRegistry jiraClientRegistry, KeywordQueryBuilder keywordQueryBuilder) {
+        this.jiraClientRegistry = jiraClientRegistry;
+        this.keywordQueryBuilder = keywordQueryBuilder;
     }
 
     /**
@@ -75,7 +98,10 @@ public class JiraController {
      */
     @GetMapping(value = "/getAllIssues", produces = "application/json")
     public List<SimpleIssue> getIssues() {
-        return new JiraClientWorker(jiraLogin, jiraPassword, jiraUrl).getIssues();
+        try (JiraClientRegistry.Lease lease = jiraClientRegistry.acquire(jiraUrl, jiraLogin, jiraPassword)) {
+            return new JiraClientWorker(lease.getClient(), jiraUrl, commentFetchParallelism, keywordQueryBuilder)
+                    .getIssues();
+        }
     }
 
     /**
@@ -99,8 +125,10 @@ public class JiraController {
             keywords.add(keyword.asText());
         }
 
-        return new JiraClientWorker(jiraLogin, jiraPassword, jiraUrl)
-                .getIssuesByKeywords(keywords, jiraIssuesDate.asText(), jiraIssuesStatus.asText());
+        try (JiraClientRegistry.Lease lease = jiraClientRegistry.acquire(jiraUrl, jiraLogin, jiraPassword)) {
+            return new JiraClientWorker(lease.getClient(), jiraUrl, commentFetchParallelism, keywordQueryBuilder)
+                    .getIssuesByKeywords(keywords, jiraIssuesDate.asText(), jiraIssuesStatus.asText());
+        }
     }
 
     /**
@@ -115,6 +143,19 @@ public class JiraController {
         JsonNode jql = jsonNode.path(JQL);
         Validations.checkJsonNode(jql);
 
-        return new JiraClientWorker(jiraLogin, jiraPassword, jiraUrl).getIssuesByJql(jql.asText());
+        try (JiraClientRegistry.Lease lease = jiraClientRegistry.acquire(jiraUrl, jiraLogin, jiraPassword)) {
+            return new JiraClientWorker(lease.getClient(), jiraUrl, commentFetchParallelism, keywordQueryBuilder)
+                    .getIssuesByJql(jql.asText());
+        }
+    }
+
+    /**
+     * This method gets statistics of the cached Jira clients
+     *
+     * @return Jira client registry statistics
+     */
+    @GetMapping(value = "/clients", produces = "application/json")
+    public JiraClientRegistryStats getClientStats() {
+        return jiraClientRegistry.getStats();
     }
 }
@@ -0,0 +1,91 @@
+package org.netcracker.learningcenter.elasticsearch;
+
+import org.netcracker.educationcenter.elasticsearch.database.model.ElasticsearchDocument;
+
+/**
+ * This class represents one document of a bulk request
+ */
+public class BulkItem {
+
+    /**
+     * Index the document is written to
+     */
+    private final String index;
+
+    /**
+     * Id of the document
+     */
+    private final String id;
+
+    /**
+     * Document to index
+     */
+    private final ElasticsearchDocument document;
+
+    /**
+     * Document serialized to JSON
+     */
+    private final byte[] source;
+
+    /**
+     * Reason of the last failed attempt to index the document
+     */
+    private String failureReason;
+
+    /**
+     * Creates a new BulkItem instance
+     *
+     * @param index index the document is written to
+     * @param id id of the document
+     * @param document document to index
+     * @param source document serialized to JSON
+     */
+    public BulkItem(String index, String id, ElasticsearchDocument document, byte[] source) {
+        this.index = index;
+        this.id = id;
+        this.document = document;
+        this.source = source;
+    }
+
+    /**
+     * @return index the document is written to
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * @return id of the document
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return document to index
+     */
+    public ElasticsearchDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * @return document serialized to JSON
+     */
+    public byte[] getSource() {
+        return source;
+    }
+
+    /**
+     * @return reason of the last failed attempt to index the document
+     */
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * @param failureReason reason of the failed attempt to set
+     */
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+}
@@ -0,0 +1,57 @@
+package org.netcracker.learningcenter.elasticsearch;
+
+/**
+ * Listener that is notified about the result of every document sent by ElasticsearchBulkIndexer
+ */
+public interface BulkItemListener {
+
+    /**
+     * Called when the document has been indexed
+     *
+     * @param item indexed document
+     */
+    default void onIndexed(BulkItem item) {
+    }
+
+    /**
+     * Called when the document could not be indexed and will not be retried anymore
+     *
+     * @param item failed document
+     * @param reason failure reason returned by Elasticsearch
+     */
+    default void onFailure(BulkItem item, String reason) {
+    }
+
+    /**
+     * Called when all documents of a flush have been either indexed or reported as failed
+     */
+    default void onFlushed() {
+    }
+
+    /**
+     * @param next listener notified after this one
+     * @return listener notifying this listener and then the next one
+     */
+    default BulkItemListener andThen(BulkItemListener next) {
+        BulkItemListener first = this;
+        return new BulkItemListener() {
+            @Override
+            public void onIndexed(BulkItem item) {
+                first.onIndexed(item);
+                next.onIndexed(item);
+            }
+
+            @Override
+            public void onFailure(BulkItem item, String reason) {
+                first.onFailure(item, reason);
+                next.onFailure(item, reason);
+            }
+
+            @Override
+            public void onFlushed() {
+                first.onFlushed();
+                next.onFlushed();
+            }
+        };
+    }
+}
@@ -0,0 +1,444 @@
+package org.netcracker.learningcenter.elasticsearch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.educationcenter.elasticsearch.database.model.ElasticsearchDocument;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers Elasticsearch documents and writes them through the _bulk API. The buffer is flushed when it reaches the
+ * maximum number of documents or bytes, periodically by time, and on close. Only the documents that failed with a
+ * retryable status are sent again. Retries are scheduled after the backoff delay, so no thread waits for them, and
+ * close waits until all retries have finished
+ */
+public class ElasticsearchBulkIndexer implements AutoCloseable {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Elasticsearch bulk API path
+     */
+    private static final String BULK_PATH = "/_bulk";
+
+    /**
+     * Content type of the bulk request body
+     */
+    private static final MediaType NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    /**
+     * Bulk response fields
+     */
+    private static final String ERRORS = "errors";
+    private static final String ITEMS = "items";
+    private static final String INDEX = "index";
+    private static final String STATUS = "status";
+    private static final String ERROR = "error";
+
+    /**
+     * Bulk action metadata fields
+     */
+    private static final String INDEX_NAME = "_index";
+    private static final String ID = "_id";
+
+    /**
+     * Interval (in milliseconds) of checking whether the scheduler is shut down while waiting for retries
+     */
+    private static final long SHUTDOWN_CHECK_INTERVAL = 1000L;
+
+    /**
+     * Line separator of the bulk request body
+     */
+    private static final int NEW_LINE = '\n';
+
+    /**
+     * WebClient connected to Elasticsearch
+     */
+    private final WebClient client;
+
+    /**
+     * ObjectMapper used to serialize documents
+     */
+    private final ObjectMapper mapper;
+
+    /**
+     * Max number of buffered documents before the buffer is flushed
+     */
+    private final int maxActions;
+
+    /**
+     * Max size of buffered documents (in bytes) before the buffer is flushed
+     */
+    private final long maxBytes;
+
+    /**
+     * Max number of retries of failed documents
+     */
+    private final int maxRetries;
+
+    /**
+     * Delay before the first retry (in milliseconds). It is doubled on every next retry
+     */
+    private final long retryBackoff;
+
+    /**
+     * Listener notified about the result of every document
+     */
+    private final BulkItemListener listener;
+
+    /**
+     * Buffered documents
+     */
+    private final List<BulkItem> buffer = new ArrayList<>();
+
+    /**
+     * Size of buffered documents (in bytes)
+     */
+    private long bufferedBytes;
+
+    /**
+     * Lock that makes flushes and retries sequential, so the listener is never called concurrently
+     */
+    private final Object flushLock = new Object();
+
+    /**
+     * Scheduler running periodic flushes and retries
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Number of scheduled retries that have not finished yet, guarded by the flush lock
+     */
+    private int pendingRetries;
+
+    /**
+     * Number of indexed documents
+     */
+    private final AtomicInteger indexedCount = new AtomicInteger();
+
+    /**
+     * Number of documents that could not be indexed
+     */
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    /**
+     * Periodic flush task
+     */
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Whether the indexer is closed, guarded by the buffer lock
+     */
+    private boolean closed;
+
+    /**
+     * Creates an ElasticsearchBulkIndexer instance
+     *
+     * @param client WebClient connected to Elasticsearch
+     * @param scheduler scheduler running periodic flushes and retries
+     * @param mapper ObjectMapper used to serialize documents
+     * @param maxActions max number of buffered documents
+     * @param maxBytes max size of buffered documents (in bytes)
+     * @param maxRetries max number of retries of failed documents
+     * @param retryBackoff delay before the first retry (in milliseconds)
+     * @param listener listener notified about the result of every document
+     */
+    ElasticsearchBulkIndexer(WebClient client, ScheduledExecutorService scheduler, ObjectMapper mapper, int maxActions,
+                             long maxBytes, int maxRetries, long retryBackoff, BulkItemListener listener) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.mapper = mapper;
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts periodic flushing of the buffer
+     *
+     * @param flushInterval flush interval (in milliseconds)
+     */
+    void scheduleFlush(long flushInterval) {
+        scheduledFlush = scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds the document to the buffer. Flushes the buffer if it is full
+     *
+     * @param document document to index
+     * @param id id of the document
+     * @param index index to write the document to
+     * @throws IllegalStateException if the indexer is closed
+     */
+    public void add(ElasticsearchDocument document, String id, String index) {
+        checkOpen();
+        byte[] source;
+        try {
+            source = mapper.writeValueAsBytes(document);
+        } catch (JsonProcessingException e) {
+            fail(new BulkItem(index, id, document, new byte[0]), e.getMessage());
+            return;
+        }
+
+        boolean full;
+        synchronized (buffer) {
+            checkOpen();
+            buffer.add(new BulkItem(index, id, document, source));
+            bufferedBytes += source.length;
+            full = buffer.size() >= maxActions || bufferedBytes >= maxBytes;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends all buffered documents to Elasticsearch. When this method returns, every document added before the call
+     * has been either indexed, reported as failed or scheduled for a retry
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<BulkItem> items;
+            synchronized (buffer) {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                items = new ArrayList<>(buffer);
+                buffer.clear();
+                bufferedBytes = 0;
+            }
+            send(items, 0);
+        }
+    }
+
+    /**
+     * Sends the documents, then schedules a retry of the ones that failed with a retryable status. Must be called
+     * while holding the flush lock
+     *
+     * @param items documents to send
+     * @param attempt number of retries before this one
+     */
+    private void send(List<BulkItem> items, int attempt) {
+        List<BulkItem> pending = execute(items);
+        if (!pending.isEmpty()) {
+            if (attempt == maxRetries) {
+                pending.forEach(item -> fail(item, item.getFailureReason()));
+            } else {
+                scheduleRetry(pending, attempt + 1);
+            }
+        }
+        try {
+            listener.onFlushed();
+        } catch (RuntimeException e) {
+            LOG.error("Something went wrong while handling flushed documents", e);
+        }
+    }
+
+    /**
+     * Schedules a retry of the failed documents after the backoff delay. The documents are reported as failed if
+     * the scheduler is shut down
+     *
+     * @param items failed documents
+     * @param attempt number of the retry
+     */
+    private void scheduleRetry(List<BulkItem> items, int attempt) {
+        long delay = retryBackoff << (attempt - 1);
+        LOG.warn("Retrying {} failed documents in {} ms, retry {} of {}", items.size(), delay, attempt, maxRetries);
+        try {
+            scheduler.schedule(() -> {
+                synchronized (flushLock) {
+                    try {
+                        send(items, attempt);
+                    } finally {
+                        pendingRetries--;
+                        flushLock.notifyAll();
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            pendingRetries++;
+        } catch (RejectedExecutionException e) {
+            items.forEach(item -> fail(item, item.getFailureReason()));
+        }
+    }
+
+    /**
+     * Executes one bulk request
+     *
+     * @param items documents to send
+     * @return documents that failed with a retryable status
+     */
+    private List<BulkItem> execute(List<BulkItem> items) {
+        JsonNode response;
+        try {
+            response = client.post()
+                    .uri(BULK_PATH)
+                    .contentType(NDJSON)
+                    .bodyValue(toBulkBody(items))
+                    .retrieve()
+                    .bodyToMono(JsonNode.class)
+                    .block();
+        } catch (WebClientResponseException e) {
+            items.forEach(item -> item.setFailureReason(e.getMessage()));
+            if (isRetryable(e.getRawStatusCode())) {
+                return items;
+            }
+            items.forEach(item -> fail(item, item.getFailureReason()));
+            return new ArrayList<>();
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Something went wrong while sending bulk request to Elasticsearch", e);
+            items.forEach(item -> item.setFailureReason(e.getMessage()));
+            return items;
+        }
+
+        if (response == null) {
+            // the bulk request has not been answered, whether the documents were indexed is unknown
+            items.forEach(item -> item.setFailureReason("Elasticsearch returned an empty bulk response"));
+            return items;
+        }
+        if (!response.path(ERRORS).asBoolean()) {
+            items.forEach(this::succeed);
+            return new ArrayList<>();
+        }
+
+        List<BulkItem> retryable = new ArrayList<>();
+        Iterator<JsonNode> results = response.path(ITEMS).elements();
+        for (BulkItem item : items) {
+            JsonNode result = results.hasNext() ? results.next().path(INDEX) : MissingNode.getInstance();
+            int status = result.path(STATUS).asInt();
+            if (HttpStatus.Series.resolve(status) == HttpStatus.Series.SUCCESSFUL) {
+                succeed(item);
+            } else {
+                item.setFailureReason(result.path(ERROR).toString());
+                if (isRetryable(status)) {
+                    retryable.add(item);
+                } else {
+                    fail(item, item.getFailureReason());
+                }
+            }
+        }
+        return retryable;
+    }
+
+    /**
+     * Builds the newline delimited body of the bulk request
+     *
+     * @param items documents to send
+     * @return bulk request body
+     * @throws IOException if the action metadata could not be written
+     */
+    private byte[] toBulkBody(List<BulkItem> items) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (BulkItem item : items) {
+            ObjectNode action = mapper.createObjectNode();
+            action.putObject(INDEX).put(INDEX_NAME, item.getIndex()).put(ID, item.getId());
+            body.write(mapper.writeValueAsBytes(action));
+            body.write(NEW_LINE);
+            body.write(item.getSource());
+            body.write(NEW_LINE);
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * @param status HTTP status of the failed document
+     * @return true if sending the document again may succeed
+     */
+    private boolean isRetryable(int status) {
+        return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == 0
+                || HttpStatus.Series.resolve(status) == HttpStatus.Series.SERVER_ERROR;
+    }
+
+    /**
+     * Reports the indexed document
+     *
+     * @param item indexed document
+     */
+    private void succeed(BulkItem item) {
+        indexedCount.incrementAndGet();
+        listener.onIndexed(item);
+    }
+
+    /**
+     * Reports the failed document
+     *
+     * @param item failed document
+     * @param reason failure reason
+     */
+    private void fail(BulkItem item, String reason) {
+        failedCount.incrementAndGet();
+        listener.onFailure(item, reason);
+    }
+
+    /**
+     * @return number of indexed documents
+     */
+    public int getIndexedCount() {
+        return indexedCount.get();
+    }
+
+    /**
+     * @return number of documents that could not be indexed
+     */
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @throws IllegalStateException if the indexer is closed
+     */
+    private void checkOpen() {
+        synchronized (buffer) {
+            if (closed) {
+                throw new IllegalStateException("Bulk indexer is closed");
+            }
+        }
+    }
+
+    /**
+     * Stops periodic flushing, flushes the remaining documents and waits until all retries have finished. Documents
+     * can not be added afterwards. If the thread is interrupted while waiting, the retries still report their
+     * documents to the listener later
+     */
+    @Override
+    public void close() {
+        synchronized (buffer) {
+            closed = true;
+        }
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        flush();
+        synchronized (flushLock) {
+            try {
+                // retries that have not started when the scheduler is shut down never run
+                while (pendingRetries > 0 && !scheduler.isShutdown()) {
+                    flushLock.wait(SHUTDOWN_CHECK_INTERVAL);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn("Stopped waiting for {} retries of bulk requests", pendingRetries);
+            }
+        }
+        LOG.info("Bulk indexing finished: {} documents indexed, {} failed", indexedCount.get(), failedCount.get());
+    }
+}
@@ -0,0 +1,142 @@
+package org.netcracker.learningcenter.elasticsearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates ElasticsearchBulkIndexer instances that share one Elasticsearch WebClient and one flush scheduler
+ */
+@Component
+public class ElasticsearchBulkIndexerFactory {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Number of threads running periodic flushes and retries
+     */
+    private static final int FLUSH_THREADS = 2;
+
+    /**
+     * WebClient connected to Elasticsearch
+     */
+    private final WebClient elasticsearchWebClient;
+
+    /**
+     * ObjectMapper used to serialize documents. It is not shared with the rest of the application, so changes of
+     * the application JSON settings do not change the indexed documents. Apart from dates it keeps the Jackson
+     * defaults: every property of the document model is written under the name given by its getter or Jackson
+     * annotation, null values included. A LocalDate without its own format annotation is written as an ISO string
+     * (yyyy-MM-dd), the form Elasticsearch parses as a date by default
+     */
+    private final ObjectMapper documentMapper;
+
+    /**
+     * Scheduler running periodic flushes and retries
+     */
+    private final ScheduledExecutorService flushScheduler =
+            Executors.newScheduledThreadPool(FLUSH_THREADS, new CustomizableThreadFactory("es-bulk-flush-"));
+
+    /**
+     * Max number of buffered documents before the buffer is flushed
+     */
+    @Value("${elasticsearch.bulk.max-actions}")
+    private int maxActions;
+
+    /**
+     * Max size of buffered documents (in bytes) before the buffer is flushed
+     */
+    @Value("${elasticsearch.bulk.max-size-bytes}")
+    private long maxBytes;
+
+    /**
+     * Flush interval (in milliseconds)
+     */
+    @Value("${elasticsearch.bulk.flush-interval}")
+    private long flushInterval;
+
+    /**
+     * Max number of retries of failed documents
+     */
+    @Value("${elasticsearch.bulk.max-retries}")
+    private int maxRetries;
+
+    /**
+     * Delay before the first retry (in milliseconds)
+     */
+    @Value("${elasticsearch.bulk.retry-backoff}")
+    private long retryBackoff;
+
+    /**
+     * Creates an ElasticsearchBulkIndexerFactory instance
+     *
+     * @param elasticsearchWebClient WebClient connected to Elasticsearch
+     */
+    @Autowired
+    public ElasticsearchBulkIndexerFactory(@Qualifier("elasticsearchWebClient") WebClient elasticsearchWebClient) {
+        this.elasticsearchWebClient = elasticsearchWebClient;
+        this.documentMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * Creates a bulk indexer that logs documents which could not be indexed
+     *
+     * @return new bulk indexer
+     */
+    public ElasticsearchBulkIndexer create() {
+        return create(new BulkItemListener() {
+        });
+    }
+
+    /**
+     * Creates a bulk indexer that logs documents which could not be indexed and notifies the listener
+     *
+     * @param listener listener notified about the result of every document
+     * @return new bulk indexer
+     */
+    public ElasticsearchBulkIndexer create(BulkItemListener listener) {
+        BulkItemListener loggingListener = new BulkItemListener() {
+            @Override
+            public void onIndexed(BulkItem item) {
+                LOG.debug("Document {} was indexed into {}", item.getId(), item.getIndex());
+                listener.onIndexed(item);
+            }
+
+            @Override
+            public void onFailure(BulkItem item, String reason) {
+                LOG.error("Document {} was not indexed into {} due to : {}", item.getId(), item.getIndex(), reason);
+                listener.onFailure(item, reason);
+            }
+
+            @Override
+            public void onFlushed() {
+                listener.onFlushed();
+            }
+        };
+        ElasticsearchBulkIndexer indexer = new ElasticsearchBulkIndexer(elasticsearchWebClient, flushScheduler,
+                documentMapper, maxActions, maxBytes, maxRetries, retryBackoff, loggingListener);
+        indexer.scheduleFlush(flushInterval);
+        return indexer;
+    }
+
+    /**
+     * Shuts down the flush scheduler
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+    }
+}
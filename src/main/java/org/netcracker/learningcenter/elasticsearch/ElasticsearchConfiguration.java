@@ -0,0 +1,114 @@
+package org.netcracker.learningcenter.elasticsearch;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Configuration class for Elasticsearch. The client is created once at startup and shared by all ingestion
+ * paths, so requests reuse its pooled keep-alive HTTP connections instead of bootstrapping a new client each time
+ */
+@Configuration
+public class ElasticsearchConfiguration {
+
+    /**
+     * Max size of a buffered Elasticsearch response (bulk responses grow with the number of documents)
+     */
+    private static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Elasticsearch hostname
+     */
+    @Value("${eshostname}")
+    private String hostname;
+
+    /**
+     * The name of the ES connection scheme
+     */
+    @Value("${scheme}")
+    private String scheme;
+
+    /**
+     * First Elasticsearch port number
+     */
+    @Value("${port1}")
+    private String port1;
+
+    /**
+     * Second Elasticsearch port number
+     */
+    @Value("${port2}")
+    private String port2;
+
+    /**
+     * Max number of connections to the Elasticsearch nodes
+     */
+    @Value("${elasticsearch.http.max-connections}")
+    private int maxConnections;
+
+    /**
+     * Time (in seconds) after which an idle connection is closed
+     */
+    @Value("${elasticsearch.http.max-idle-time}")
+    private long maxIdleTime;
+
+    /**
+     * Response timeout (in seconds)
+     */
+    @Value("${elasticsearch.http.response-timeout}")
+    private long responseTimeout;
+
+    /**
+     * Connection pool shared by all requests to Elasticsearch
+     *
+     * @return pooled connection provider
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider elasticsearchConnectionProvider() {
+        return ConnectionProvider.builder("elasticsearch")
+                .maxConnections(maxConnections)
+                .maxIdleTime(Duration.ofSeconds(maxIdleTime))
+                .evictInBackground(Duration.ofSeconds(maxIdleTime))
+                .build();
+    }
+
+    /**
+     * Selector spreading requests over both Elasticsearch nodes
+     *
+     * @return node selector
+     */
+    @Bean
+    public ElasticsearchNodeSelector elasticsearchNodeSelector() {
+        return new ElasticsearchNodeSelector(Arrays.asList(
+                URI.create(scheme + "://" + hostname + ":" + port1),
+                URI.create(scheme + "://" + hostname + ":" + port2)));
+    }
+
+    /**
+     * WebClient shared by the whole application to talk to Elasticsearch. Requests are sent to the nodes in
+     * round-robin order and fail over to the other node when a connection can not be made
+     *
+     * @return WebClient with keep-alive pooled connections
+     */
+    @Bean
+    public WebClient elasticsearchWebClient() {
+        ElasticsearchNodeSelector nodeSelector = elasticsearchNodeSelector();
+        HttpClient httpClient = HttpClient.create(elasticsearchConnectionProvider())
+                .keepAlive(true)
+                .responseTimeout(Duration.ofSeconds(responseTimeout));
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_SIZE))
+                .baseUrl(nodeSelector.getFirstNode().toString())
+                .filter(nodeSelector)
+                .build();
+    }
+}
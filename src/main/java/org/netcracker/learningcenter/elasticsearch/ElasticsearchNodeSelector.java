@@ -0,0 +1,94 @@
+package org.netcracker.learningcenter.elasticsearch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads Elasticsearch requests over the cluster nodes in round-robin order. A request that could not reach its
+ * node is sent to the next one, so the requests keep going while one of the nodes is down
+ */
+public class ElasticsearchNodeSelector implements ExchangeFilterFunction {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Base URIs of the Elasticsearch nodes
+     */
+    private final List<URI> nodes;
+
+    /**
+     * Counter choosing the node of the next request
+     */
+    private final AtomicInteger nextNode = new AtomicInteger();
+
+    /**
+     * Creates an ElasticsearchNodeSelector instance
+     *
+     * @param nodes base URIs of the Elasticsearch nodes
+     */
+    public ElasticsearchNodeSelector(List<URI> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one Elasticsearch node is required");
+        }
+        this.nodes = new ArrayList<>(nodes);
+    }
+
+    /**
+     * @return base URI of the first node, used as the base URL of the WebClient
+     */
+    public URI getFirstNode() {
+        return nodes.get(0);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        int first = Math.floorMod(nextNode.getAndIncrement(), nodes.size());
+        return exchange(request, next, first, 0);
+    }
+
+    /**
+     * Sends the request to a node, and to the next node if the connection has failed
+     *
+     * @param request request to send
+     * @param next exchange function of the WebClient
+     * @param first index of the node the request was sent to first
+     * @param attempt number of nodes tried before
+     * @return response of the node
+     */
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int first, int attempt) {
+        URI node = nodes.get((first + attempt) % nodes.size());
+        ClientRequest nodeRequest = ClientRequest.from(request).url(toNode(request.url(), node)).build();
+        return next.exchange(nodeRequest).onErrorResume(WebClientRequestException.class, e -> {
+            if (attempt + 1 >= nodes.size()) {
+                return Mono.error(e);
+            }
+            LOG.warn("Elasticsearch node {} is not available, trying the next node: {}", node, e.getMessage());
+            return exchange(request, next, first, attempt + 1);
+        });
+    }
+
+    /**
+     * @param url URL of the request
+     * @param node base URI of the node
+     * @return URL of the request on the node
+     */
+    private URI toNode(URI url, URI node) {
+        return UriComponentsBuilder.fromUri(url)
+                .scheme(node.getScheme())
+                .host(node.getHost())
+                .port(node.getPort())
+                .build(true)
+                .toUri();
+    }
+}
@@ -0,0 +1,32 @@
+package org.netcracker.learningcenter.enums;
+
+/**
+ * Statuses of data collection jobs
+ */
+public enum JobStatus {
+
+    /**
+     * Job is waiting for a free thread
+     */
+    QUEUED,
+
+    /**
+     * Job is collecting data
+     */
+    RUNNING,
+
+    /**
+     * Job has collected all data
+     */
+    COMPLETED,
+
+    /**
+     * Job has stopped due to an error
+     */
+    FAILED,
+
+    /**
+     * Job was cancelled by user
+     */
+    CANCELLED
+}
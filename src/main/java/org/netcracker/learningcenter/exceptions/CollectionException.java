@@ -0,0 +1,15 @@
+package org.netcracker.learningcenter.exceptions;
+
+/**
+ * This exception should be thrown if data could not be collected from a source or could not be stored, so the
+ * request may be retried later
+ */
+public class CollectionException extends RuntimeException {
+    public CollectionException(String message) {
+        super(message);
+    }
+
+    public CollectionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
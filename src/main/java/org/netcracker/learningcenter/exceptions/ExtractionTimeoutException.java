@@ -0,0 +1,12 @@
+package org.netcracker.learningcenter.exceptions;
+
+import java.io.InterruptedIOException;
+
+/**
+ * This exception should be thrown if text extraction from a file has not finished in time and was cancelled
+ */
+public class ExtractionTimeoutException extends InterruptedIOException {
+    public ExtractionTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package org.netcracker.learningcenter.exceptions;
+
+import java.io.IOException;
+
+/**
+ * This exception should be thrown if a source has rejected the credentials, so the request can not succeed until
+ * the credentials are changed
+ */
+public class InvalidCredentialsException extends IOException {
+    public InvalidCredentialsException(String message) {
+        super(message);
+    }
+}
@@ -17,6 +17,7 @@ import org.netcracker.learningcenter.utils.Validations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -199,6 +200,27 @@ public class DatabaseAdministrator {
         }
     }
 
+    /**
+     * Performs the database operations in one transaction. Operations with missing mandatory fields are skipped,
+     * any other failure rolls back the whole transaction
+     *
+     * @param jsonNodes JSONs with required fields
+     * @return number of performed operations
+     */
+    @Transactional
+    public int doOperations(List<JsonNode> jsonNodes) {
+        int performed = 0;
+        for (JsonNode jsonNode : jsonNodes) {
+            try {
+                doOperation(jsonNode);
+                performed++;
+            } catch (ResourceNotFoundException e) {
+                LOGGER.error("JSON mandatory field is missing", e);
+            }
+        }
+        return performed;
+    }
+
     /**
      * Gets all existing credentials from database as CredentialDto instance
      *
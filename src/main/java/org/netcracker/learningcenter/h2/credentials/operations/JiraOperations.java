@@ -3,6 +3,7 @@ package org.netcracker.learningcenter.h2.credentials.operations;
 import org.jasypt.util.text.AES256TextEncryptor;
 import org.netcracker.learningcenter.h2.credentials.daos.JiraCredentialsDAO;
 import org.netcracker.learningcenter.h2.credentials.entities.JiraCredentials;
+import org.netcracker.learningcenter.jira.JiraClientRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -27,16 +28,24 @@ public class JiraOperations implements DatabaseCredentialsOperations<JiraCredent
      */
     private final AES256TextEncryptor aes256TextEncryptor;
 
+    /**
+     * JiraClientRegistry instance to drop cached clients of changed credentials
+     */
+    private final JiraClientRegistry jiraClientRegistry;
+
     /**
      * Creates a JiraOperations instance
      *
      * @param jiraCredentialsDAO current JiraCredentialsDAO instance
      * @param aes256TextEncryptor current AES256TextEncryptor instance
+     * @param jiraClientRegistry current JiraClientRegistry instance
      */
     @Autowired
-    public JiraOperations(JiraCredentialsDAO jiraCredentialsDAO, AES256TextEncryptor aes256TextEncryptor) {
+    public JiraOperations(JiraCredentialsDAO jiraCredentialsDAO, AES256TextEncryptor aes256TextEncryptor,
+                          JiraClientRegistry jiraClientRegistry) {
         this.jiraCredentialsDAO = jiraCredentialsDAO;
         this.aes256TextEncryptor = aes256TextEncryptor;
+        this.jiraClientRegistry = jiraClientRegistry;
     }
 
     /**
@@ -64,6 +73,7 @@ public class JiraOperations implements DatabaseCredentialsOperations<JiraCredent
     @Transactional
     public void remove(JiraCredentials jiraCredentials) {
         jiraCredentialsDAO.deleteByUrl(jiraCredentials.getUrl());
+        jiraClientRegistry.invalidate(jiraCredentials.getUrl());
     }
 
     /**
@@ -79,6 +89,7 @@ public class JiraOperations implements DatabaseCredentialsOperations<JiraCredent
             jiraCredentialsDAO.delete(credentialsFromDatabase);
             jiraCredentials.setPassword(aes256TextEncryptor.encrypt(jiraCredentials.getPassword()));
             jiraCredentialsDAO.save(jiraCredentials);
+            jiraClientRegistry.invalidate(jiraCredentials.getUrl());
         }
     }
 
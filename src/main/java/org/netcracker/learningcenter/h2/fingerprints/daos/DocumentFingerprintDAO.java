@@ -0,0 +1,30 @@
+package org.netcracker.learningcenter.h2.fingerprints.daos;
+
+import org.netcracker.learningcenter.h2.fingerprints.entities.DocumentFingerprint;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Interface for document fingerprint operations on database
+ */
+@Repository
+public interface DocumentFingerprintDAO extends CrudRepository<DocumentFingerprint, Long> {
+
+    /**
+     * Finds the document fingerprint record
+     *
+     * @param fingerprint fingerprint to search for
+     * @return found record
+     */
+    DocumentFingerprint findDocumentFingerprintByFingerprint(String fingerprint);
+
+    /**
+     * Finds the fingerprint records of the document
+     *
+     * @param documentId id of the document to search for
+     * @return a list of found records
+     */
+    List<DocumentFingerprint> findDocumentFingerprintsByDocumentId(String documentId);
+}
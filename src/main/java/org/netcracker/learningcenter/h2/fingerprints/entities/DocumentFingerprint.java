@@ -0,0 +1,73 @@
+package org.netcracker.learningcenter.h2.fingerprints.entities;
+
+import javax.persistence.*;
+
+/**
+ * This class links a content fingerprint to the Elasticsearch document that was created from the content
+ */
+@Entity
+@Table(name = "DOCUMENT_FINGERPRINT", indexes = @Index(columnList = "DocumentId"))
+public class DocumentFingerprint {
+
+    /**
+     * Entity id
+     */
+    @Id
+    @GeneratedValue
+    @Column(name = "Id", nullable = false)
+    private Long id;
+
+    /**
+     * Elasticsearch index name and hash of the document content
+     */
+    @Column(name = "Fingerprint", length = 128, nullable = false, unique = true)
+    private String fingerprint;
+
+    /**
+     * Id of the Elasticsearch document
+     */
+    @Column(name = "DocumentId", nullable = false)
+    private String documentId;
+
+    /**
+     * @return id of this entity
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @param id this entity's id to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return fingerprint of the document content
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @param fingerprint fingerprint of the document content to set
+     */
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return id of the Elasticsearch document
+     */
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * @param documentId id of the Elasticsearch document to set
+     */
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+}
@@ -0,0 +1,71 @@
+package org.netcracker.learningcenter.h2.fingerprints.operations;
+
+import org.netcracker.learningcenter.h2.fingerprints.daos.DocumentFingerprintDAO;
+import org.netcracker.learningcenter.h2.fingerprints.entities.DocumentFingerprint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements database operations with document fingerprints
+ */
+@Service
+public class DocumentFingerprintOperations {
+
+    /**
+     * DocumentFingerprintDAO instance to be able to perform database operations
+     */
+    private final DocumentFingerprintDAO documentFingerprintDAO;
+
+    /**
+     * Creates a DocumentFingerprintOperations instance
+     *
+     * @param documentFingerprintDAO current DocumentFingerprintDAO instance
+     */
+    @Autowired
+    public DocumentFingerprintOperations(DocumentFingerprintDAO documentFingerprintDAO) {
+        this.documentFingerprintDAO = documentFingerprintDAO;
+    }
+
+    /**
+     * Gets the id of the document created from the content with the fingerprint
+     *
+     * @param fingerprint content fingerprint
+     * @return document id, or null if there is no such document
+     */
+    public String getDocumentId(String fingerprint) {
+        DocumentFingerprint record = documentFingerprintDAO.findDocumentFingerprintByFingerprint(fingerprint);
+        return record == null ? null : record.getDocumentId();
+    }
+
+    /**
+     * Saves the fingerprint of the indexed document. Fingerprints of the previous content of the document are
+     * removed, because the document has been overwritten. If another document already has the fingerprint, it is
+     * kept as the document with this content
+     *
+     * @param fingerprint content fingerprint
+     * @param documentId id of the document
+     * @return removed fingerprints of the previous content of the document
+     */
+    @Transactional
+    public synchronized List<String> replace(String fingerprint, String documentId) {
+        DocumentFingerprint record = documentFingerprintDAO.findDocumentFingerprintByFingerprint(fingerprint);
+        List<String> removedFingerprints = new ArrayList<>();
+        for (DocumentFingerprint previous : documentFingerprintDAO.findDocumentFingerprintsByDocumentId(documentId)) {
+            if (!previous.getFingerprint().equals(fingerprint)) {
+                documentFingerprintDAO.delete(previous);
+                removedFingerprints.add(previous.getFingerprint());
+            }
+        }
+        if (record == null) {
+            record = new DocumentFingerprint();
+            record.setFingerprint(fingerprint);
+            record.setDocumentId(documentId);
+            documentFingerprintDAO.save(record);
+        }
+        return removedFingerprints;
+    }
+}
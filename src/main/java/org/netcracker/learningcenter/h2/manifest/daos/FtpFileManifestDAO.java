@@ -0,0 +1,31 @@
+package org.netcracker.learningcenter.h2.manifest.daos;
+
+import org.netcracker.learningcenter.h2.manifest.entities.FtpFileManifest;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Interface for FTP file manifest operations on database
+ */
+@Repository
+public interface FtpFileManifestDAO extends CrudRepository<FtpFileManifest, Long> {
+
+    /**
+     * Finds manifest records of all files of the FTP-server
+     *
+     * @param server FTP-server IP to search for
+     * @return a list of found manifest records
+     */
+    List<FtpFileManifest> findFtpFileManifestsByServer(String server);
+
+    /**
+     * Finds the manifest record of the file
+     *
+     * @param server FTP-server IP to search for
+     * @param path full path to the file
+     * @return found manifest record
+     */
+    FtpFileManifest findFtpFileManifestByServerAndPath(String server, String path);
+}
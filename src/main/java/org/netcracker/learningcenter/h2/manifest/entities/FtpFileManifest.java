@@ -0,0 +1,155 @@
+package org.netcracker.learningcenter.h2.manifest.entities;
+
+import javax.persistence.*;
+
+/**
+ * This class contains the state of a file on the FTP-server at the moment it was last indexed
+ */
+@Entity
+@Table(name = "FTP_FILE_MANIFEST",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"Server", "Path"}),
+        indexes = @Index(columnList = "Server"))
+public class FtpFileManifest {
+
+    /**
+     * Entity id
+     */
+    @Id
+    @GeneratedValue
+    @Column(name = "Id", nullable = false)
+    private Long id;
+
+    /**
+     * IP address of the FTP-server
+     */
+    @Column(name = "Server", length = 64, nullable = false)
+    private String server;
+
+    /**
+     * Full path to the file on the FTP-server
+     */
+    @Column(name = "Path", length = 1024, nullable = false)
+    private String path;
+
+    /**
+     * File size in bytes
+     */
+    @Column(name = "Size", nullable = false)
+    private long size;
+
+    /**
+     * File modification time (epoch milliseconds)
+     */
+    @Column(name = "ModificationTime", nullable = false)
+    private long modificationTime;
+
+    /**
+     * Hash of the file content
+     */
+    @Column(name = "ContentHash", length = 16, nullable = false)
+    private String contentHash;
+
+    /**
+     * Id of the Elasticsearch document created from the file
+     */
+    @Column(name = "DocumentId", nullable = false)
+    private String documentId;
+
+    /**
+     * @return id of this entity
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @param id this entity's id to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return IP address of the FTP-server
+     */
+    public String getServer() {
+        return server;
+    }
+
+    /**
+     * @param server IP address of the FTP-server to set
+     */
+    public void setServer(String server) {
+        this.server = server;
+    }
+
+    /**
+     * @return full path to the file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @param path full path to the file to set
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return file size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param size file size to set
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * @return file modification time (epoch milliseconds)
+     */
+    public long getModificationTime() {
+        return modificationTime;
+    }
+
+    /**
+     * @param modificationTime file modification time to set
+     */
+    public void setModificationTime(long modificationTime) {
+        this.modificationTime = modificationTime;
+    }
+
+    /**
+     * @return hash of the file content
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * @param contentHash hash of the file content to set
+     */
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @return id of the Elasticsearch document
+     */
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * @param documentId id of the Elasticsearch document to set
+     */
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+}
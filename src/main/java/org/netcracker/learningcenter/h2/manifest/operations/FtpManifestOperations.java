@@ -0,0 +1,113 @@
+package org.netcracker.learningcenter.h2.manifest.operations;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.h2.manifest.daos.FtpFileManifestDAO;
+import org.netcracker.learningcenter.h2.manifest.entities.FtpFileManifest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class implements database operations with the manifest of indexed FTP files
+ */
+@Service
+public class FtpManifestOperations {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * FtpFileManifestDAO instance to be able to perform database operations
+     */
+    private final FtpFileManifestDAO ftpFileManifestDAO;
+
+    /**
+     * Creates a FtpManifestOperations instance
+     *
+     * @param ftpFileManifestDAO current FtpFileManifestDAO instance
+     */
+    @Autowired
+    public FtpManifestOperations(FtpFileManifestDAO ftpFileManifestDAO) {
+        this.ftpFileManifestDAO = ftpFileManifestDAO;
+    }
+
+    /**
+     * Gets manifest records of all files of the FTP-server
+     *
+     * @param server FTP-server IP address
+     * @return manifest records by full file path
+     */
+    public Map<String, FtpFileManifest> getManifest(String server) {
+        Map<String, FtpFileManifest> manifest = new HashMap<>();
+        for (FtpFileManifest record : ftpFileManifestDAO.findFtpFileManifestsByServer(server)) {
+            manifest.put(record.getPath(), record);
+        }
+        return manifest;
+    }
+
+    /**
+     * Checks whether the file has the same size and modification time as when it was indexed
+     *
+     * @param record manifest record of the file
+     * @param file file on the FTP-server
+     * @return true if the file has not changed
+     */
+    public boolean isUnchanged(FtpFileManifest record, FTPFile file) {
+        return record.getSize() == file.getSize()
+                && file.getTimestamp() != null
+                && record.getModificationTime() == file.getTimestamp().getTimeInMillis();
+    }
+
+    /**
+     * Creates a manifest record of the file, it is not saved to the database. If the file already has a record,
+     * the new record replaces it when it is saved
+     *
+     * @param server FTP-server IP address
+     * @param path full path to the file
+     * @param file file on the FTP-server
+     * @param contentHash hash of the file content
+     * @param documentId id of the Elasticsearch document created from the file
+     * @param previous current manifest record of the file, or null if the file has no record
+     * @return new manifest record
+     */
+    public FtpFileManifest createRecord(String server, String path, FTPFile file, String contentHash,
+                                        String documentId, FtpFileManifest previous) {
+        FtpFileManifest record = new FtpFileManifest();
+        record.setId(previous != null ? previous.getId() : null);
+        record.setServer(server);
+        record.setPath(path);
+        record.setSize(file.getSize());
+        record.setModificationTime(file.getTimestamp() != null ? file.getTimestamp().getTimeInMillis() : 0L);
+        record.setContentHash(contentHash);
+        record.setDocumentId(documentId);
+        return record;
+    }
+
+    /**
+     * Saves the manifest records in one transaction. Records of files that already have a row update it. If
+     * another collection of the same server has added a row of the file in the meantime (the unique key on server
+     * and path rejects the batch), the ids of the current rows are looked up and the batch is saved again
+     *
+     * @param records manifest records to save
+     */
+    public void saveAll(Collection<FtpFileManifest> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            ftpFileManifestDAO.saveAll(records);
+        } catch (DataIntegrityViolationException e) {
+            LOG.debug("Manifest records were added concurrently, saving {} records again", records.size());
+            for (FtpFileManifest record : records) {
+                FtpFileManifest recordFromDatabase = ftpFileManifestDAO.
+                        findFtpFileManifestByServerAndPath(record.getServer(), record.getPath());
+                record.setId(recordFromDatabase != null ? recordFromDatabase.getId() : null);
+            }
+            ftpFileManifestDAO.saveAll(records);
+        }
+    }
+}
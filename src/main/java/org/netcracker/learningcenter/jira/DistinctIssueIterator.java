@@ -0,0 +1,86 @@
+package org.netcracker.learningcenter.jira;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Iterates over the Jira-issues found by several JQL queries, skipping issues that have already been returned by
+ * a previous query. The first page of the next query is requested as soon as the current query starts
+ */
+public class DistinctIssueIterator implements Iterator<SimpleIssue> {
+
+    /**
+     * Queries that have not been started yet
+     */
+    private final Iterator<String> queries;
+
+    /**
+     * Starts the search of a query
+     */
+    private final Function<String, JiraIssueIterator> search;
+
+    /**
+     * Keys of the already returned issues
+     */
+    private final Set<String> returnedKeys = new HashSet<>();
+
+    /**
+     * Issues of the current query
+     */
+    private JiraIssueIterator current;
+
+    /**
+     * Already started next query
+     */
+    private JiraIssueIterator upcoming;
+
+    /**
+     * Next issue to return
+     */
+    private SimpleIssue nextIssue;
+
+    /**
+     * Creates a DistinctIssueIterator instance
+     *
+     * @param queries JQL queries to execute
+     * @param search starts the search of a query
+     */
+    DistinctIssueIterator(List<String> queries, Function<String, JiraIssueIterator> search) {
+        this.queries = queries.iterator();
+        this.search = search;
+        this.upcoming = this.queries.hasNext() ? search.apply(this.queries.next()) : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextIssue == null) {
+            if (current == null || !current.hasNext()) {
+                if (upcoming == null) {
+                    return false;
+                }
+                current = upcoming;
+                upcoming = queries.hasNext() ? search.apply(queries.next()) : null;
+                continue;
+            }
+            SimpleIssue issue = current.next();
+            if (returnedKeys.add(issue.getIssueKey())) {
+                nextIssue = issue;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public SimpleIssue next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SimpleIssue issue = nextIssue;
+        nextIssue = null;
+        return issue;
+    }
+}
@@ -0,0 +1,333 @@
+package org.netcracker.learningcenter.jira;
+
+import com.atlassian.jira.rest.client.api.JiraRestClient;
+import com.atlassian.jira.rest.client.internal.async.AsynchronousJiraRestClientFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps JiraRestClient instances for reuse. Clients are cached by Jira URL and login. A client is closed when it
+ * has been idle for too long, when the cache is full, or when the password of its account changes. Clients that
+ * are still leased are closed as soon as their last lease is released. Idle clients are also swept periodically,
+ * so they do not stay open while the registry is not used
+ */
+@Component
+public class JiraClientRegistry {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Cached clients in access order
+     */
+    private final Map<ClientKey, ClientEntry> clients = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Max number of cached clients
+     */
+    private final int maxClients;
+
+    /**
+     * Time (in nanoseconds) after which an unused client is closed
+     */
+    private final long maxIdleTime;
+
+    /**
+     * Scheduler running the sweep of idle clients
+     */
+    private final ScheduledExecutorService sweepScheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("jira-client-sweep-"));
+
+    private long createdCount;
+    private long reusedCount;
+    private long closedCount;
+
+    /**
+     * Creates a JiraClientRegistry instance
+     *
+     * @param maxClients max number of cached clients
+     * @param maxIdleTime time (in seconds) after which an unused client is closed
+     * @param sweepInterval interval (in seconds) between the sweeps of idle clients
+     */
+    @Autowired
+    public JiraClientRegistry(@Value("${jira.client.max-clients}") int maxClients,
+                              @Value("${jira.client.max-idle-time}") long maxIdleTime,
+                              @Value("${jira.client.sweep-interval}") long sweepInterval) {
+        this.maxClients = maxClients;
+        this.maxIdleTime = TimeUnit.SECONDS.toNanos(maxIdleTime);
+        sweepScheduler.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Leases the client of the Jira account. The cached client is reused if the password has not changed,
+     * otherwise the old client is retired and a new one is created. The client is created without holding the
+     * registry lock; if another thread has cached a client of the account meanwhile, that client is leased and the
+     * new one is closed
+     *
+     * @param url Jira URL
+     * @param login Jira login
+     * @param password Jira password
+     * @return lease of the client, it must be closed when the client is not needed anymore
+     */
+    public Lease acquire(String url, String login, String password) {
+        ClientKey key = new ClientKey(url, login);
+        List<ClientEntry> retired = new ArrayList<>();
+        ClientEntry entry;
+
+        synchronized (this) {
+            entry = leaseCached(key, password, retired);
+        }
+        if (entry == null) {
+            ClientEntry created = new ClientEntry(url, password, createClient(url, login, password));
+            synchronized (this) {
+                createdCount++;
+                entry = leaseCached(key, password, retired);
+                if (entry == null) {
+                    clients.put(key, created);
+                    created.leases++;
+                    entry = created;
+                } else {
+                    retired.add(created);
+                }
+                evict(retired);
+            }
+        }
+        closeAll(retired);
+        return new Lease(entry);
+    }
+
+    /**
+     * Leases the cached client of the account. A client with another password is retired
+     *
+     * @param key key of the client
+     * @param password Jira password
+     * @param retired list the clients to close are added to
+     * @return leased client, or null if no valid client is cached
+     */
+    private ClientEntry leaseCached(ClientKey key, String password, List<ClientEntry> retired) {
+        ClientEntry entry = clients.get(key);
+        if (entry != null && !entry.password.equals(password)) {
+            LOG.info("Credentials of {} at {} have changed, the cached Jira client is retired", key.login, key.url);
+            clients.remove(key);
+            retire(entry, retired);
+            entry = null;
+        }
+        if (entry != null) {
+            entry.leases++;
+            reusedCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Retires all clients of the Jira server, e.g. after its credentials have been updated or removed
+     *
+     * @param url Jira URL
+     */
+    public void invalidate(String url) {
+        List<ClientEntry> retired = new ArrayList<>();
+        synchronized (this) {
+            Iterator<ClientEntry> iterator = clients.values().iterator();
+            while (iterator.hasNext()) {
+                ClientEntry entry = iterator.next();
+                if (entry.url.equals(url)) {
+                    iterator.remove();
+                    retire(entry, retired);
+                }
+            }
+        }
+        closeAll(retired);
+    }
+
+    /**
+     * @return current statistics of the registry
+     */
+    public synchronized JiraClientRegistryStats getStats() {
+        int leased = 0;
+        for (ClientEntry entry : clients.values()) {
+            if (entry.leases > 0) {
+                leased++;
+            }
+        }
+        return new JiraClientRegistryStats(clients.size(), leased, maxClients, createdCount, reusedCount,
+                closedCount);
+    }
+
+    /**
+     * Stops the sweep and closes all clients
+     */
+    @PreDestroy
+    public void shutdown() {
+        sweepScheduler.shutdownNow();
+        List<ClientEntry> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(clients.values());
+            clients.clear();
+        }
+        entries.forEach(this::close);
+    }
+
+    private JiraRestClient createClient(String url, String login, String password) {
+        return new AsynchronousJiraRestClientFactory()
+                .createWithBasicHttpAuthentication(URI.create(url), login, password);
+    }
+
+    /**
+     * Closes the clients that have been idle for too long
+     */
+    private void sweep() {
+        List<ClientEntry> retired = new ArrayList<>();
+        synchronized (this) {
+            evict(retired);
+        }
+        closeAll(retired);
+    }
+
+    /**
+     * Removes idle clients and the least recently used clients over the limit. Leased clients are only retired
+     *
+     * @param retired list the clients to close are added to
+     */
+    private void evict(List<ClientEntry> retired) {
+        long now = System.nanoTime();
+        int excess = clients.size() - maxClients;
+        Iterator<ClientEntry> iterator = clients.values().iterator();
+
+        while (iterator.hasNext()) {
+            ClientEntry entry = iterator.next();
+            boolean idle = entry.leases == 0 && now - entry.lastUsed > maxIdleTime;
+            if (idle || (excess > 0 && entry.leases == 0)) {
+                iterator.remove();
+                retire(entry, retired);
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * Marks the entry as retired. It is added to the list of clients to close if nobody uses it
+     */
+    private void retire(ClientEntry entry, List<ClientEntry> retired) {
+        entry.retired = true;
+        if (entry.leases == 0) {
+            retired.add(entry);
+        }
+    }
+
+    private void release(ClientEntry entry) {
+        List<ClientEntry> retired = new ArrayList<>();
+        synchronized (this) {
+            entry.leases--;
+            entry.lastUsed = System.nanoTime();
+            if (entry.retired && entry.leases == 0) {
+                retired.add(entry);
+            }
+            evict(retired);
+        }
+        closeAll(retired);
+    }
+
+    private void closeAll(List<ClientEntry> entries) {
+        entries.forEach(this::close);
+    }
+
+    private void close(ClientEntry entry) {
+        try {
+            entry.client.close();
+        } catch (IOException e) {
+            LOG.warn("Could not close Jira client of {}", entry.url, e);
+        }
+        synchronized (this) {
+            closedCount++;
+        }
+    }
+
+    /**
+     * Lease of a cached client. Closing the lease returns the client to the registry
+     */
+    public final class Lease implements AutoCloseable {
+        private final ClientEntry entry;
+        private boolean released;
+
+        private Lease(ClientEntry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * @return leased Jira client
+         */
+        public JiraRestClient getClient() {
+            return entry.client;
+        }
+
+        /**
+         * Returns the client to the registry
+         */
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(entry);
+            }
+        }
+    }
+
+    /**
+     * Cached client together with its usage state. The state is guarded by the registry
+     */
+    private static final class ClientEntry {
+        private final String url;
+        private final String password;
+        private final JiraRestClient client;
+        private int leases;
+        private long lastUsed = System.nanoTime();
+        private boolean retired;
+
+        private ClientEntry(String url, String password, JiraRestClient client) {
+            this.url = url;
+            this.password = password;
+            this.client = client;
+        }
+    }
+
+    /**
+     * Key of a cached client
+     */
+    private static final class ClientKey {
+        private final String url;
+        private final String login;
+
+        private ClientKey(String url, String login) {
+            this.url = url;
+            this.login = login;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ClientKey clientKey = (ClientKey) o;
+            return url.equals(clientKey.url) && login.equals(clientKey.login);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, login);
+        }
+    }
+}
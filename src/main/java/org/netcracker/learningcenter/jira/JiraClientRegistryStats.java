@@ -0,0 +1,71 @@
+package org.netcracker.learningcenter.jira;
+
+/**
+ * Snapshot of the JiraClientRegistry statistics
+ */
+public class JiraClientRegistryStats {
+
+    /**
+     * Number of cached clients
+     */
+    private final int cachedClients;
+
+    /**
+     * Number of cached clients that are in use right now
+     */
+    private final int leasedClients;
+
+    /**
+     * Max number of cached clients
+     */
+    private final int maxClients;
+
+    /**
+     * Number of clients created since the start
+     */
+    private final long createdClients;
+
+    /**
+     * Number of times a cached client was reused
+     */
+    private final long reusedClients;
+
+    /**
+     * Number of clients closed since the start
+     */
+    private final long closedClients;
+
+    public JiraClientRegistryStats(int cachedClients, int leasedClients, int maxClients, long createdClients,
+                                   long reusedClients, long closedClients) {
+        this.cachedClients = cachedClients;
+        this.leasedClients = leasedClients;
+        this.maxClients = maxClients;
+        this.createdClients = createdClients;
+        this.reusedClients = reusedClients;
+        this.closedClients = closedClients;
+    }
+
+    public int getCachedClients() {
+        return cachedClients;
+    }
+
+    public int getLeasedClients() {
+        return leasedClients;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public long getCreatedClients() {
+        return createdClients;
+    }
+
+    public long getReusedClients() {
+        return reusedClients;
+    }
+
+    public long getClosedClients() {
+        return closedClients;
+    }
+}
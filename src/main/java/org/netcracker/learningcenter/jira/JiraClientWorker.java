@@ -4,19 +4,25 @@ import com.atlassian.jira.rest.client.api.JiraRestClient;
 import com.atlassian.jira.rest.client.api.domain.BasicProject;
 import com.atlassian.jira.rest.client.api.domain.Comment;
 import com.atlassian.jira.rest.client.api.domain.Issue;
-import com.atlassian.jira.rest.client.api.domain.SearchResult;
 import com.atlassian.jira.rest.client.internal.async.AsynchronousJiraRestClientFactory;
 import io.atlassian.util.concurrent.Promise;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.netcracker.learningcenter.collector.interfaces.ICollector;
+import org.netcracker.learningcenter.utils.KeywordQueryBuilder;
 
 import java.net.URI;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Class which creates new JiraRestClient instance and gets all issues
@@ -41,6 +47,17 @@ public class JiraClientWorker implements ICollector {
      */
     private static final String JIRA_PASSWORD = "jira.password";
 
+    /**
+     * Issue fields requested by searches. Comments are requested together with the issues, so they do not have to
+     * be fetched issue by issue
+     */
+    private static final Set<String> SEARCH_FIELDS = new HashSet<>(Arrays.asList("*navigable", "comment"));
+
+    /**
+     * Max number of issues in one search page (Jira does not return more than 100)
+     */
+    private static final int PAGE_SIZE = 100;
+
     /**
      * JiraRestClient instance
      */
@@ -52,15 +69,30 @@ public class JiraClientWorker implements ICollector {
     private final String jiraUrl;
 
     /**
-     * Creates a JiraClientWorker instance
+     * Max number of issues whose comments are fetched at the same time, if the search did not return them
+     */
+    private final int commentFetchParallelism;
+
+    /**
+     * Builder of keyword conditions
+     */
+    private final KeywordQueryBuilder keywordQueryBuilder;
+
+    /**
+     * Creates a JiraClientWorker instance. The worker does not own the client, it is closed by the caller
+     * (usually by returning it to {@link JiraClientRegistry})
      *
-     * @param login Jira login
-     * @param password Jira password
+     * @param restClient authorized Jira client
      * @param jiraUrl Jira url
+     * @param commentFetchParallelism max number of issues whose comments are fetched at the same time
+     * @param keywordQueryBuilder builder of keyword conditions
      */
-    public JiraClientWorker(String login, String password, String jiraUrl) {
+    public JiraClientWorker(JiraRestClient restClient, String jiraUrl, int commentFetchParallelism,
+                            KeywordQueryBuilder keywordQueryBuilder) {
         this.jiraUrl = jiraUrl;
-        this.restClient = getAuthorizedClient(jiraUrl, login, password);
+        this.restClient = restClient;
+        this.commentFetchParallelism = commentFetchParallelism;
+        this.keywordQueryBuilder = keywordQueryBuilder;
     }
 
     /**
@@ -88,18 +120,7 @@ public class JiraClientWorker implements ICollector {
         projects.forEach(p -> {
             LOG.debug("Found project: {}", p);
 
-            Promise<SearchResult> searchJqlPromise;
-            searchJqlPromise = restClient.getSearchClient().searchJql("project = " + p.getKey());
-
-            for (Issue issue : searchJqlPromise.claim().getIssues()) {
-                List<String> comments = new ArrayList<>();
-
-                for (Comment comment : getAllComments(issue)) {
-                    comments.add(comment.getBody());
-                }
-                issues.add(new SimpleIssue(issue.getKey(), createWebLink(jiraUrl, issue.getKey()),
-                        issue.getSummary(), issue.getDescription(), comments, issue.getUpdateDate().toDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate()));
-            }
+            iterateIssues("project = " + p.getKey()).forEachRemaining(issues::add);
         });
         return issues;
     }
@@ -113,45 +134,35 @@ public class JiraClientWorker implements ICollector {
      * @return relevant Jira-issues as a List
      */
     public List<SimpleIssue> getIssuesByKeywords(List<String> keywords, String issuesDate, String issuesStatus) {
-        List<BasicProject> projects = new ArrayList<>();
         List<SimpleIssue> issues = new ArrayList<>();
+        iterateIssuesByKeywords(keywords, issuesDate, issuesStatus, false).forEachRemaining(issues::add);
+        return issues;
+    }
 
-        for (BasicProject project : restClient.getProjectClient().getAllProjects().claim()) {
-            projects.add(project);
-        }
-
-        projects.forEach(p -> {
-            List<String> addedKeys = new ArrayList<>();
-            for (String keyword : keywords) {
-                String jql = "text ~ " + "\"" + keyword + "\"";
-                if (!issuesDate.isEmpty()) {
-                    jql += " AND created >= " + issuesDate;
-                }
-                if (!issuesStatus.isEmpty()) {
-                    jql += " AND status=" + issuesStatus;
-                }
-                LOG.debug("JQL: {}", jql);
-
-                Promise<SearchResult> searchResult = restClient.getSearchClient().searchJql(jql);
-                SearchResult results = searchResult.claim();
-
-                for (Issue issue : results.getIssues()) {
-                    List<String> comments = new ArrayList<>();
-
-                    for (Comment comment : getAllComments(issue)) {
-                        comments.add(comment.getBody());
-                    }
-
-                    SimpleIssue relevantIssue = new SimpleIssue(issue.getKey(), createWebLink(jiraUrl, issue.getKey()),
-                            issue.getSummary(), issue.getDescription(), comments, issue.getUpdateDate().toDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
-                    if (!addedKeys.contains(relevantIssue.getIssueKey())) {
-                        issues.add(relevantIssue);
-                        addedKeys.add(relevantIssue.getIssueKey());
-                    }
-                }
+    /**
+     * Iterates over Jira-issues found by keywords in JQL (optionally, it is filtered by date and status). Keywords
+     * are combined with OR by the keyword query builder. Every issue is returned once, even if it contains several
+     * keywords
+     *
+     * @param keywords Jira-issues text field keywords
+     * @param issuesDate user defined latest Jira-issue date
+     * @param issuesStatus user defined Jira-issue status
+     * @param partitionByProject true to execute every query separately for every project
+     * @return iterator over relevant Jira-issues
+     */
+    public Iterator<SimpleIssue> iterateIssuesByKeywords(List<String> keywords, String issuesDate,
+                                                         String issuesStatus, boolean partitionByProject) {
+        List<String> queries = new ArrayList<>();
+        for (String jql : keywordQueryBuilder.build(keywords, "text ~ ")) {
+            if (!issuesDate.isEmpty()) {
+                jql += " AND created >= " + issuesDate;
             }
-        });
-        return issues;
+            if (!issuesStatus.isEmpty()) {
+                jql += " AND status=" + issuesStatus;
+            }
+            queries.add(jql);
+        }
+        return iterateDistinctIssues(queries, partitionByProject);
     }
 
     /**
@@ -161,40 +172,43 @@ public class JiraClientWorker implements ICollector {
      * @return relevant Jira-issues as a List
      */
     public List<SimpleIssue> getIssuesByJql(String jql) {
-        List<BasicProject> projects = new ArrayList<>();
         List<SimpleIssue> issues = new ArrayList<>();
-
-        for (BasicProject project : restClient.getProjectClient().getAllProjects().claim()) {
-            projects.add(project);
-        }
-
-        projects.forEach(p -> {
-            Promise<SearchResult> searchResult = restClient.getSearchClient().searchJql(jql);
-            SearchResult results = searchResult.claim();
-
-            for (Issue issue : results.getIssues()) {
-                List<String> comments = new ArrayList<>();
-
-                for (Comment comment : getAllComments(issue)) {
-                    comments.add(comment.getBody());
-                }
-
-                issues.add(new SimpleIssue(issue.getKey(), createWebLink(jiraUrl, issue.getKey()), issue.getSummary(),
-                        issue.getDescription(), comments, issue.getUpdateDate().toDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate()));
-            }
-        });
+        iterateIssuesByJql(jql, false).forEachRemaining(issues::add);
         return issues;
     }
 
     /**
-     * @param uri      the server Uri
-     * @param login    client's login. It just be any mail address
-     * @param password the Jira rest Token which create user in his profile
-     * @return JiraRestClient instance for working with ticket system
+     * Iterates over Jira-issues found by user-specified JQL
+     *
+     * @param jql user's JQL to search Jira-issues
+     * @param partitionByProject true to execute the query separately for every project
+     * @return iterator over relevant Jira-issues
      */
-    private JiraRestClient getAuthorizedClient(String uri, String login, String password) {
-        return new AsynchronousJiraRestClientFactory()
-                .createWithBasicHttpAuthentication(URI.create(uri), login, password);
+    public Iterator<SimpleIssue> iterateIssuesByJql(String jql, boolean partitionByProject) {
+        return iterateDistinctIssues(Collections.singletonList(jql), partitionByProject);
+    }
+
+    /**
+     * Executes every distinct query once (or once per project) and iterates over the found issues. Issues found
+     * by several queries are returned once
+     *
+     * @param queries JQL queries
+     * @param partitionByProject true to execute every query separately for every project
+     * @return iterator over found issues
+     */
+    private Iterator<SimpleIssue> iterateDistinctIssues(List<String> queries, boolean partitionByProject) {
+        List<String> plan;
+        if (partitionByProject) {
+            List<String> projectKeys = new ArrayList<>();
+            for (BasicProject project : restClient.getProjectClient().getAllProjects().claim()) {
+                projectKeys.add(project.getKey());
+            }
+            plan = JiraQueryPlanner.planByProjects(queries, projectKeys);
+        } else {
+            plan = JiraQueryPlanner.plan(queries);
+        }
+        plan.forEach(jql -> LOG.debug("JQL: {}", jql));
+        return new DistinctIssueIterator(plan, this::iterateIssues);
     }
 
     /**
@@ -208,10 +222,8 @@ public class JiraClientWorker implements ICollector {
     @Override
     public boolean authorize(String uriAddress, String login, String password) {
         boolean check = false;
-        JiraRestClient restClient;
-        try {
-            restClient = new AsynchronousJiraRestClientFactory()
-                    .createWithBasicHttpAuthentication(URI.create(uriAddress), login, password);
+        try (JiraRestClient restClient = new AsynchronousJiraRestClientFactory()
+                .createWithBasicHttpAuthentication(URI.create(uriAddress), login, password)) {
             if (!restClient.getProjectClient().getAllProjects().claim().toString().equals("[]"))
                 check = true;
         } catch (Exception e) {
@@ -223,12 +235,69 @@ public class JiraClientWorker implements ICollector {
     }
 
     /**
-     * @param issue Issue instance
-     * @return all comments from issue
+     * Iterates over all Jira-issues (together with their comments) found by the JQL, page by page
+     *
+     * @param jql JQL to search Jira-issues
+     * @return iterator over found issues
+     */
+    public JiraIssueIterator iterateIssues(String jql) {
+        return new JiraIssueIterator(
+                startAt -> restClient.getSearchClient().searchJql(jql, PAGE_SIZE, startAt, SEARCH_FIELDS),
+                this::toSimpleIssues);
+    }
+
+    /**
+     * Converts found issues to SimpleIssues
+     *
+     * @param foundIssues issues returned by a search
+     * @return list of SimpleIssues
      */
-    private List<Comment> getAllComments(Issue issue) {
-        return StreamSupport.stream(restClient.getIssueClient().getIssue(issue.getKey()).claim().getComments().spliterator(), false)
-                .collect(Collectors.toList());
+    private List<SimpleIssue> toSimpleIssues(Iterable<Issue> foundIssues) {
+        List<Issue> issues = new ArrayList<>();
+        foundIssues.forEach(issues::add);
+
+        Map<String, Iterable<Comment>> missingComments = getMissingComments(issues);
+        List<SimpleIssue> simpleIssues = new ArrayList<>();
+
+        for (Issue issue : issues) {
+            List<String> comments = new ArrayList<>();
+            Iterable<Comment> issueComments = issue.getComments() != null
+                    ? issue.getComments() : missingComments.get(issue.getKey());
+
+            for (Comment comment : issueComments) {
+                comments.add(comment.getBody());
+            }
+            simpleIssues.add(new SimpleIssue(issue.getKey(), createWebLink(jiraUrl, issue.getKey()),
+                    issue.getSummary(), issue.getDescription(), comments,
+                    issue.getUpdateDate().toDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate()));
+        }
+        return simpleIssues;
+    }
+
+    /**
+     * Fetches comments of the issues that were returned by a search without them. At most
+     * commentFetchParallelism issues are requested at the same time
+     *
+     * @param issues issues returned by a search
+     * @return comments by issue key
+     */
+    private Map<String, Iterable<Comment>> getMissingComments(List<Issue> issues) {
+        List<String> keys = new ArrayList<>();
+        for (Issue issue : issues) {
+            if (issue.getComments() == null) {
+                keys.add(issue.getKey());
+            }
+        }
+
+        Map<String, Iterable<Comment>> comments = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += commentFetchParallelism) {
+            Map<String, Promise<Issue>> promises = new LinkedHashMap<>();
+            for (String key : keys.subList(from, Math.min(from + commentFetchParallelism, keys.size()))) {
+                promises.put(key, restClient.getIssueClient().getIssue(key));
+            }
+            promises.forEach((key, promise) -> comments.put(key, promise.claim().getComments()));
+        }
+        return comments;
     }
 
     /**
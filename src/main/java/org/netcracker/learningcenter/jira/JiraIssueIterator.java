@@ -0,0 +1,110 @@
+package org.netcracker.learningcenter.jira;
+
+import com.atlassian.jira.rest.client.api.domain.Issue;
+import com.atlassian.jira.rest.client.api.domain.SearchResult;
+import io.atlassian.util.concurrent.Promise;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over all Jira-issues found by one JQL, page by page (startAt/maxResults). The next page is requested
+ * as soon as the current one arrives, so it is being loaded while the current page is converted and processed.
+ * At most two pages are held in memory at a time: the one being processed and the one being loaded
+ */
+public class JiraIssueIterator implements Iterator<SimpleIssue> {
+
+    /**
+     * Requests the page that starts at the given position
+     */
+    private final IntFunction<Promise<SearchResult>> pageLoader;
+
+    /**
+     * Converts issues of a page to SimpleIssues
+     */
+    private final Function<Iterable<Issue>, List<SimpleIssue>> converter;
+
+    /**
+     * Requested page that has not been processed yet
+     */
+    private Promise<SearchResult> nextPage;
+
+    /**
+     * Issues of the current page
+     */
+    private Iterator<SimpleIssue> currentPage = Collections.emptyIterator();
+
+    /**
+     * Total number of found issues, -1 until the first page arrives
+     */
+    private int total = -1;
+
+    /**
+     * Creates a JiraIssueIterator instance and requests the first page
+     *
+     * @param pageLoader requests the page that starts at the given position
+     * @param converter converts issues of a page to SimpleIssues
+     */
+    JiraIssueIterator(IntFunction<Promise<SearchResult>> pageLoader,
+                      Function<Iterable<Issue>, List<SimpleIssue>> converter) {
+        this.pageLoader = pageLoader;
+        this.converter = converter;
+        this.nextPage = pageLoader.apply(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+            SearchResult page = nextPage.claim();
+            total = page.getTotal();
+
+            int received = 0;
+            for (Issue ignored : page.getIssues()) {
+                received++;
+            }
+            int nextStartAt = page.getStartAt() + received;
+            nextPage = received > 0 && nextStartAt < total ? pageLoader.apply(nextStartAt) : null;
+
+            currentPage = converter.apply(page.getIssues()).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public SimpleIssue next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * Waits for the first page if it has not arrived yet
+     *
+     * @return total number of issues found by the JQL
+     */
+    public int getTotal() {
+        if (total < 0) {
+            hasNext();
+        }
+        return Math.max(total, 0);
+    }
+
+    /**
+     * @return remaining issues as a sequential Stream
+     */
+    public Stream<SimpleIssue> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+    }
+}
@@ -0,0 +1,155 @@
+package org.netcracker.learningcenter.jira;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Plans JQL queries of one collection: every distinct query is executed exactly once, or, if project partitioning
+ * is wanted, exactly once per project with the project stated explicitly in the query
+ */
+public final class JiraQueryPlanner {
+
+    /**
+     * Keywords of the ORDER BY clause of a JQL
+     */
+    private static final String ORDER = "order";
+    private static final String BY = "by";
+
+    private JiraQueryPlanner() {
+    }
+
+    /**
+     * @param queries JQL queries
+     * @return distinct queries in their original order
+     */
+    public static List<String> plan(Collection<String> queries) {
+        return new ArrayList<>(new LinkedHashSet<>(queries));
+    }
+
+    /**
+     * @param queries JQL queries
+     * @param projectKeys keys of the projects to partition the queries by
+     * @return every distinct query scoped to every project
+     */
+    public static List<String> planByProjects(Collection<String> queries, Collection<String> projectKeys) {
+        List<String> plan = new ArrayList<>();
+        for (String query : new LinkedHashSet<>(queries)) {
+            for (String projectKey : projectKeys) {
+                plan.add(scopeToProject(query, projectKey));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Restricts the JQL to one project. The ORDER BY clause (if any) is kept at the end of the query
+     *
+     * @param jql JQL query
+     * @param projectKey key of the project
+     * @return JQL that searches only in the project
+     */
+    public static String scopeToProject(String jql, String projectKey) {
+        String projectCondition = "project = \"" + projectKey + "\"";
+        int orderBy = findOrderBy(jql);
+        String condition = jql;
+        String ordering = "";
+        if (orderBy >= 0) {
+            condition = jql.substring(0, orderBy);
+            ordering = " " + jql.substring(orderBy).trim();
+        }
+
+        if (condition.trim().isEmpty()) {
+            return projectCondition + ordering;
+        }
+        return projectCondition + " AND (" + condition + ")" + ordering;
+    }
+
+    /**
+     * Finds the start of the last ORDER BY clause of the JQL. Quoted strings are skipped, so ORDER BY inside
+     * a quoted value (e.g. text ~ "order by date") is not taken for the clause
+     *
+     * @param jql JQL query
+     * @return position of the ORDER keyword, or -1 if the JQL has no ORDER BY clause
+     */
+    private static int findOrderBy(String jql) {
+        int last = -1;
+        int i = 0;
+        while (i < jql.length()) {
+            char c = jql.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = skipQuoted(jql, i);
+            } else if (isWordStart(jql, i) && isOrderBy(jql, i)) {
+                last = i;
+                i += ORDER.length();
+            } else {
+                i++;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @param jql JQL query
+     * @param start position of the opening quote
+     * @return position after the closing quote, or the length of the JQL if the string is not closed
+     */
+    private static int skipQuoted(String jql, int start) {
+        char quote = jql.charAt(start);
+        int i = start + 1;
+        while (i < jql.length()) {
+            char c = jql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return jql.length();
+    }
+
+    /**
+     * @param jql JQL query
+     * @param i position in the JQL
+     * @return true if a word may start at the position
+     */
+    private static boolean isWordStart(String jql, int i) {
+        if (i == 0) {
+            return true;
+        }
+        char previous = jql.charAt(i - 1);
+        return !Character.isLetterOrDigit(previous) && previous != '_' && previous != '.';
+    }
+
+    /**
+     * @param jql JQL query
+     * @param i position in the JQL
+     * @return true if the keywords ORDER BY followed by a whitespace start at the position
+     */
+    private static boolean isOrderBy(String jql, int i) {
+        if (!jql.regionMatches(true, i, ORDER, 0, ORDER.length())) {
+            return false;
+        }
+        int by = skipWhitespace(jql, i + ORDER.length());
+        if (by == i + ORDER.length() || !jql.regionMatches(true, by, BY, 0, BY.length())) {
+            return false;
+        }
+        int end = by + BY.length();
+        return end < jql.length() && Character.isWhitespace(jql.charAt(end));
+    }
+
+    /**
+     * @param jql JQL query
+     * @param i position in the JQL
+     * @return position of the first non-whitespace character starting from the position
+     */
+    private static int skipWhitespace(String jql, int i) {
+        while (i < jql.length() && Character.isWhitespace(jql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
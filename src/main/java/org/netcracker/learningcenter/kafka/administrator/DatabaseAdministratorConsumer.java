@@ -20,6 +20,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -76,52 +78,82 @@ public class DatabaseAdministratorConsumer {
 
     /**
      * Adds, removes, updates credentials in the database OR gets all existing credentials as CredentialDto and sends
-     * them as Kafka message to the relevant topic
+     * them as Kafka message to the relevant topic. All operations of the batch are performed in one transaction,
+     * and one message with all existing credentials is sent per batch
      *
-     * @param record a record with a message
-     * @throws JsonProcessingException if something bad encountered when processing (parsing, generating) JSON content,
-     * that are not pure I/O problems
+     * @param records a batch of records with messages
      */
-    public void interactWithDatabase(ConsumerRecord<String, String> record) throws JsonProcessingException {
-        JsonNode jsonNode = objectMapper.readTree(record.value());
-        JsonNode type = jsonNode.path(TYPE);
+    public void interactWithDatabase(List<ConsumerRecord<String, String>> records) {
+        List<JsonNode> operations = new ArrayList<>();
+        boolean selectRequested = false;
 
-        try {
-            Validations.checkJsonNode(type);
-            if (type.asText().equals(DatabaseOperation.GET_ALL.name().toLowerCase(Locale.ROOT))) {
-                JsonNode credentialsAsDto = databaseAdministrator.getAllAsDto();
-                ListenableFuture<SendResult<String, JsonNode>> userFuture =
-                        producerKafkaTemplate.send(resultsTopic, credentialsAsDto);
-                userFuture.addCallback(new ListenableFutureCallback<SendResult<String, JsonNode>>() {
-                    @Override
-                    public void onSuccess(SendResult<String, JsonNode> stringReportSendResult) {
-                        LOG.info("Sent message=[{}] with offset=[{}]", credentialsAsDto.toString(), stringReportSendResult.getRecordMetadata().offset());
-                    }
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                JsonNode jsonNode = objectMapper.readTree(record.value());
+                JsonNode type = jsonNode.path(TYPE);
+                Validations.checkJsonNode(type);
+                if (type.asText().equals(DatabaseOperation.GET_ALL.name().toLowerCase(Locale.ROOT))) {
+                    selectRequested = true;
+                } else {
+                    operations.add(jsonNode);
+                }
+            } catch (JsonProcessingException e) {
+                LOG.error("Something bad encountered when processing JSON content", e);
+            } catch (ResourceNotFoundException e) {
+                LOG.error("JSON mandatory field is missing", e);
+            }
+        }
 
-                    @Override
-                    public void onFailure(Throwable throwable) {
-                        LOG.error("Unable to send message=[{}] due to : {}", credentialsAsDto.toString(), throwable.getMessage());
-                    }
-                });
-            } else {
-                databaseAdministrator.doOperation(jsonNode);
-                JsonNode credentialsAsDto = databaseAdministrator.getAllAsDto();
-                ListenableFuture<SendResult<String, JsonNode>> userFuture =
-                        producerKafkaTemplate.send(resultsTopic, credentialsAsDto);
-                userFuture.addCallback(new ListenableFutureCallback<SendResult<String, JsonNode>>() {
-                    @Override
-                    public void onSuccess(SendResult<String, JsonNode> stringReportSendResult) {
-                        LOG.info("Sent message=[{}] with offset=[{}]", credentialsAsDto.toString(), stringReportSendResult.getRecordMetadata().offset());
-                    }
+        if ((!operations.isEmpty() && doOperations(operations) > 0) || selectRequested) {
+            sendCredentials();
+        }
+    }
 
-                    @Override
-                    public void onFailure(Throwable throwable) {
-                        LOG.error("Unable to send message=[{}] due to : {}", credentialsAsDto.toString(), throwable.getMessage());
-                    }
-                });
+    /**
+     * Performs the operations in one transaction. If the transaction fails, the operations are performed one by one,
+     * so a single bad operation does not discard the others
+     *
+     * @param operations JSONs with required fields
+     * @return number of performed operations
+     */
+    private int doOperations(List<JsonNode> operations) {
+        try {
+            return databaseAdministrator.doOperations(operations);
+        } catch (RuntimeException e) {
+            LOG.warn("Batch of {} operations was rolled back, operations are performed one by one",
+                    operations.size(), e);
+        }
+        int performed = 0;
+        for (JsonNode jsonNode : operations) {
+            try {
+                databaseAdministrator.doOperation(jsonNode);
+                performed++;
+            } catch (ResourceNotFoundException e) {
+                LOG.error("JSON mandatory field is missing", e);
+            } catch (RuntimeException e) {
+                LOG.error("Operation {} has failed", jsonNode, e);
             }
-        } catch (ResourceNotFoundException e) {
-            LOG.error("JSON mandatory field is missing", e);
         }
+        return performed;
+    }
+
+    /**
+     * Sends all existing credentials as CredentialDto to the relevant topic
+     */
+    private void sendCredentials() {
+        JsonNode credentialsAsDto = databaseAdministrator.getAllAsDto();
+        ListenableFuture<SendResult<String, JsonNode>> userFuture =
+                producerKafkaTemplate.send(resultsTopic, credentialsAsDto);
+        userFuture.addCallback(new ListenableFutureCallback<SendResult<String, JsonNode>>() {
+            @Override
+            public void onSuccess(SendResult<String, JsonNode> stringReportSendResult) {
+                LOG.info("Sent message=[{}] with offset=[{}]", credentialsAsDto.toString(), stringReportSendResult.getRecordMetadata().offset());
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                LOG.error("Unable to send message=[{}] due to : {}", credentialsAsDto.toString(), throwable.getMessage());
+            }
+        });
     }
 }
@@ -3,6 +3,7 @@ package org.netcracker.learningcenter.kafka.configuration;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.netcracker.learningcenter.kafka.dataminer.OrderedOffsetTracker;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,6 +11,7 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -72,4 +74,37 @@ public class KafkaConsumerConfig {
         factory.setConsumerFactory(kafkaConsumerFactory());
         return factory;
     }
+
+    /**
+     * Kafka listener container factory for listeners that acknowledge records themselves. Offsets are committed
+     * only for acknowledged records, so records can be processed on other threads. Records in progress of revoked
+     * partitions are forgotten by the offset tracker
+     *
+     * @param offsetTracker tracker acknowledging records of the containers
+     * @return factory with configured consumer and manual acknowledgment
+     */
+    @Bean
+    public KafkaListenerContainerFactory<?> manualAckKafkaListenerContainerFactory(
+            OrderedOffsetTracker offsetTracker) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(kafkaConsumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(offsetTracker);
+        return factory;
+    }
+
+    /**
+     * Kafka listener container factory for listeners that receive all polled records at once
+     *
+     * @return factory with configured consumer and batch listener
+     */
+    @Bean
+    public KafkaListenerContainerFactory<?> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(kafkaConsumerFactory());
+        factory.setBatchListener(true);
+        return factory;
+    }
 }
@@ -2,6 +2,7 @@ package org.netcracker.learningcenter.kafka.configuration;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -35,6 +36,36 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.producer.group-id}")
     private String kafkaGroupId;
 
+    /**
+     * Time (in milliseconds) a record waits for other records to be sent in the same batch
+     */
+    @Value("${kafka.producer.linger-ms}")
+    private int lingerMs;
+
+    /**
+     * Max size of a batch (in bytes)
+     */
+    @Value("${kafka.producer.batch-size}")
+    private int batchSize;
+
+    /**
+     * Compression of the batches (e.g. "none", "lz4", "zstd")
+     */
+    @Value("${kafka.producer.compression-type}")
+    private String compressionType;
+
+    /**
+     * Whether retries may not write duplicates or reorder records
+     */
+    @Value("${kafka.producer.enable-idempotence}")
+    private boolean enableIdempotence;
+
+    /**
+     * Number of acknowledgments a record needs to be sent ("all" is required by idempotence)
+     */
+    @Value("${kafka.producer.acks}")
+    private String acks;
+
     /**
      * Sets producer's configuration
      *
@@ -47,6 +78,11 @@ public class KafkaProducerConfig {
         props.put(ProducerConfig.CLIENT_ID_CONFIG, kafkaGroupId);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
 
         return props;
     }
@@ -72,4 +108,29 @@ public class KafkaProducerConfig {
         template.setMessageConverter(new JsonMessageConverter());
         return template;
     }
+
+    /**
+     * Kafka producer factory for values that are already serialized. It uses producer configurations with
+     * the byte array serializer
+     *
+     * @return default kafka factory for producer of byte arrays
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> byteArrayKafkaProducerFactory() {
+        Map<String, Object> props = new HashMap<>(kafkaProducerConfigs());
+        props.put(ProducerConfig.CLIENT_ID_CONFIG, kafkaGroupId + "-bytes");
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    /**
+     * Producer Kafka template for pre-serialized JSON. Messages are written as they are, without building
+     * and serializing a JsonNode tree for every send
+     *
+     * @return template with configured byte array producer
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> byteArrayKafkaTemplate() {
+        return new KafkaTemplate<>(byteArrayKafkaProducerFactory());
+    }
 }
@@ -1,25 +1,45 @@
 package org.netcracker.learningcenter.kafka.dataminer;
 
+import com.atlassian.jira.rest.client.api.RestClientException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.exceptions.CollectionException;
+import org.netcracker.learningcenter.exceptions.InvalidCredentialsException;
 import org.netcracker.learningcenter.exceptions.ResourceNotFoundException;
 import org.netcracker.learningcenter.services.dataminer.DataMiner;
+import org.netcracker.learningcenter.services.dataminer.DataMinerJob;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
 
 /**
- * Kafka-consumer class for DataMiner service
+ * Kafka-consumer class for DataMiner service. Requests are handed off to the job thread pool, so the listener
+ * thread keeps polling while data is collected. The listener thread never waits for a free place: the listener
+ * container is paused while too many requests are in progress, and a record that can not be started now is
+ * received again later. Offsets are committed only after the result of the request has been sent
  *
  * @author Mikhail Savin
  */
@@ -29,6 +49,26 @@ import org.springframework.util.concurrent.ListenableFutureCallback;
 public class DataMinerConsumer {
     private static final Logger LOG = LogManager.getLogger();
 
+    /**
+     * Id of the listener container of the request topic
+     */
+    public static final String LISTENER_ID = "data-miner-request";
+
+    /**
+     * Prefix of the ids of the listener containers of the retry topics, it is followed by the number of the topic
+     */
+    private static final String RETRY_LISTENER_IDS_PREFIX = "data-miner-request-retry-";
+
+    /**
+     * Max time (in milliseconds) a retry listener sleeps before a request from its retry topic is received again
+     */
+    private static final long MAX_RETRY_SLEEP = 30000L;
+
+    /**
+     * Delay (in milliseconds) before a request that could not be started is received again
+     */
+    private static final long REJECTED_RETRY_DELAY = 1000L;
+
     /**
      * Topic with results from DataMiner
      */
@@ -45,16 +85,67 @@ public class DataMinerConsumer {
      */
     private final ObjectMapper objectMapper;
 
+    /**
+     * Registry of listener containers, it is used to pause and resume the request listener
+     */
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    /**
+     * Permits of requests that may be in progress at the same time
+     */
+    private final Semaphore inFlightRequests;
+
+    /**
+     * Tracker committing offsets of the processed requests in order
+     */
+    private final OrderedOffsetTracker offsetTracker;
+
+    /**
+     * Handler sending failed requests to the retry topics and the dead-letter topic
+     */
+    private final FailedRequestHandler failedRequestHandler;
+
+    /**
+     * Ids of all listener containers that receive requests: the request topic and every retry topic
+     */
+    private final List<String> listenerIds = new ArrayList<>();
+
     /**
      * Creates a DataMinerConsumer instance
      *
      * @param dataMiner current DataMiner instance
      * @param objectMapper current ObjectMapper instance
+     * @param listenerRegistry current KafkaListenerEndpointRegistry instance
+     * @param failedRequestHandler current FailedRequestHandler instance
+     * @param offsetTracker current OrderedOffsetTracker instance
+     * @param retryTopics retry topics of the requests, each of them has its own listener container
+     * @param maxInFlight max number of requests in progress at the same time
      */
     @Autowired
-    public DataMinerConsumer(DataMiner dataMiner, ObjectMapper objectMapper) {
+    public DataMinerConsumer(DataMiner dataMiner, ObjectMapper objectMapper,
+                             KafkaListenerEndpointRegistry listenerRegistry,
+                             FailedRequestHandler failedRequestHandler, OrderedOffsetTracker offsetTracker,
+                             @Value("#{'${kafka.data-miner.request.retry-topics}'.split(',')}")
+                                     List<String> retryTopics,
+                             @Value("${kafka.data-miner.request-listener.max-in-flight}") int maxInFlight) {
         this.dataMiner = dataMiner;
         this.objectMapper = objectMapper;
+        this.listenerRegistry = listenerRegistry;
+        this.failedRequestHandler = failedRequestHandler;
+        this.offsetTracker = offsetTracker;
+        this.inFlightRequests = new Semaphore(maxInFlight);
+        listenerIds.add(LISTENER_ID);
+        for (int i = 0; i < retryTopics.size(); i++) {
+            listenerIds.add(getRetryListenerId(i));
+        }
+    }
+
+    /**
+     * @param index number of the retry topic
+     * @return id of the listener container of the retry topic
+     */
+    public static String getRetryListenerId(int index) {
+        return RETRY_LISTENER_IDS_PREFIX + index;
     }
 
     /**
@@ -64,32 +155,220 @@ public class DataMinerConsumer {
     private KafkaTemplate<String, JsonNode> producerKafkaTemplate;
 
     /**
-     * Initializes data search and collection Sends message to Kafka topic "collecting.data-miner.results"
+     * Initializes data search and collection. Sends message to Kafka topic "collecting.data-miner.results" when
+     * the collection has completed. A request that has failed for a transient cause is sent to a retry topic, and a
+     * request that can not succeed is sent to the dead-letter topic. The record is acknowledged after the message
+     * has been sent. If too many requests are in progress, or the job thread pool rejects the request, the record
+     * is received again later
      *
      * @param record a record with a message
-     * @throws JsonProcessingException if something bad encountered when processing (parsing, generating) JSON content,
-     * that are not pure I/O problems
+     * @param acknowledgment acknowledgment of the record
      */
-    public void searchAndCollect(ConsumerRecord<String, String> record) throws JsonProcessingException {
-        JsonNode jsonNode = objectMapper.readTree(record.value());
+    public void searchAndCollect(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        // a record that is received again replaces its registration, so later records are not acknowledged past it
+        offsetTracker.register(record, acknowledgment);
+        if (!acquireSlot()) {
+            acknowledgment.nack(REJECTED_RETRY_DELAY);
+            return;
+        }
+        try {
+            start(record, acknowledgment);
+        } catch (RuntimeException e) {
+            LOG.error("Request from {}-{}@{} could not be started", record.topic(), record.partition(),
+                    record.offset(), e);
+            whenSent(failedRequestHandler.deadLetter(record, e), record, () -> finish(record));
+        }
+    }
 
+    /**
+     * Starts the collection of a request that holds a permit. The permit is returned and the record is
+     * acknowledged when the request has been processed
+     *
+     * @param record a record with a message
+     * @param acknowledgment acknowledgment of the record
+     */
+    private void start(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        JsonNode jsonNode;
         try {
-            JsonNode dataMinerDtoAsJsonNode = dataMiner.searchAndCollect(jsonNode);
-            ListenableFuture<SendResult<String, JsonNode>> userFuture =
-                    producerKafkaTemplate.send(resultsTopic, dataMinerDtoAsJsonNode);
-            userFuture.addCallback(new ListenableFutureCallback<SendResult<String, JsonNode>>() {
-                @Override
-                public void onSuccess(SendResult<String, JsonNode> stringReportSendResult) {
-                    LOG.info("Sent message=[{}] with offset=[{}]", dataMinerDtoAsJsonNode.toString(), stringReportSendResult.getRecordMetadata().offset());
-                }
+            jsonNode = objectMapper.readTree(record.value());
+        } catch (JsonProcessingException e) {
+            LOG.error("Something bad encountered when processing JSON content", e);
+            whenSent(failedRequestHandler.deadLetter(record, e), record, () -> finish(record));
+            return;
+        }
 
-                @Override
-                public void onFailure(Throwable throwable) {
-                    LOG.error("Unable to send message=[{}] due to : {}", dataMinerDtoAsJsonNode.toString(), throwable.getMessage());
-                }
-            });
+        DataMinerJob job;
+        try {
+            job = dataMiner.startCollection(jsonNode);
+        } catch (RejectedExecutionException e) {
+            LOG.info("Job thread pool is full, request from {}-{}@{} is received again in {} ms", record.topic(),
+                    record.partition(), record.offset(), REJECTED_RETRY_DELAY);
+            inFlightRequests.release();
+            resume();
+            acknowledgment.nack(REJECTED_RETRY_DELAY);
+            return;
         } catch (ResourceNotFoundException e) {
             LOG.error("JSON mandatory field is missing", e);
+            whenSent(failedRequestHandler.deadLetter(record, e), record, () -> finish(record));
+            return;
+        }
+        job.getCompletion().whenComplete((dataMinerDtoAsJsonNode, error) -> {
+            if (error instanceof CancellationException) {
+                LOG.info("Request {} was cancelled", job.getRequestId());
+                finish(record);
+            } else if (error != null) {
+                LOG.error("Request {} has not completed", job.getRequestId(), error);
+                ListenableFuture<SendResult<String, byte[]>> future = isTransient(error)
+                        ? failedRequestHandler.retry(record, error)
+                        : failedRequestHandler.deadLetter(record, error);
+                whenSent(future, record, () -> finish(record));
+            } else {
+                send(dataMinerDtoAsJsonNode, record);
+            }
+        });
+    }
+
+    /**
+     * Initializes data search and collection of a request from a retry topic. If the delay of the retry topic has
+     * not expired yet, the record is received again later
+     *
+     * @param record a record with a message
+     * @param acknowledgment acknowledgment of the record
+     */
+    public void retry(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        long delay = failedRequestHandler.getRemainingDelay(record);
+        if (delay > 0) {
+            acknowledgment.nack(Math.min(delay, MAX_RETRY_SLEEP));
+            return;
+        }
+        searchAndCollect(record, acknowledgment);
+    }
+
+    /**
+     * Checks whether a failed request may succeed if it is retried later. Timeouts, I/O errors, server errors of
+     * the sources and tasks rejected by a full collector queue are transient. Missing fields, rejected credentials
+     * and rejected queries are not, and neither is a failure of unknown cause. A collection that has failed in
+     * several tasks is transient only if all of its failures are
+     *
+     * @param error cause of the failure
+     * @return true if the request may be retried
+     */
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof CollectionException) {
+            if (error.getCause() == null) {
+                // documents that could not be indexed
+                return true;
+            }
+            for (Throwable suppressed : error.getSuppressed()) {
+                if (!isTransient(suppressed)) {
+                    return false;
+                }
+            }
+            return isTransient(error.getCause());
+        }
+        if (error instanceof ResourceNotFoundException || error instanceof InvalidCredentialsException) {
+            return false;
+        }
+        if (error instanceof RestClientException && ((RestClientException) error).getStatusCode().isPresent()) {
+            return ((RestClientException) error).getStatusCode().get() >= 500;
+        }
+        if (error instanceof WebClientResponseException) {
+            return ((WebClientResponseException) error).getStatusCode().is5xxServerError();
+        }
+        if (error instanceof TimeoutException || error instanceof IOException || error instanceof InterruptedException
+                || error instanceof WebClientRequestException || error instanceof RejectedExecutionException) {
+            return true;
+        }
+        Throwable cause = error.getCause();
+        return cause != null && cause != error && isTransient(cause);
+    }
+
+    /**
+     * Runs the action when the request has been sent to a retry or dead-letter topic. The action runs even if the
+     * request could not be sent, the payload is logged then
+     *
+     * @param future result of the send
+     * @param record record of the request
+     * @param action action to run
+     */
+    private void whenSent(ListenableFuture<SendResult<String, byte[]>> future, ConsumerRecord<String, String> record,
+                          Runnable action) {
+        future.addCallback(result -> action.run(), throwable -> {
+            LOG.error("Unable to send failed request=[{}] due to : {}", record.value(), throwable.getMessage());
+            action.run();
+        });
+    }
+
+    /**
+     * Sends the result of the request to Kafka topic "collecting.data-miner.results"
+     *
+     * @param dataMinerDtoAsJsonNode result of the request
+     * @param record record of the request
+     */
+    private void send(JsonNode dataMinerDtoAsJsonNode, ConsumerRecord<String, String> record) {
+        ListenableFuture<SendResult<String, JsonNode>> userFuture =
+                producerKafkaTemplate.send(resultsTopic, dataMinerDtoAsJsonNode);
+        userFuture.addCallback(new ListenableFutureCallback<SendResult<String, JsonNode>>() {
+            @Override
+            public void onSuccess(SendResult<String, JsonNode> stringReportSendResult) {
+                LOG.info("Sent message=[{}] with offset=[{}]", dataMinerDtoAsJsonNode.toString(), stringReportSendResult.getRecordMetadata().offset());
+                finish(record);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                LOG.error("Unable to send message=[{}] due to : {}", dataMinerDtoAsJsonNode.toString(), throwable.getMessage());
+                finish(record);
+            }
+        });
+    }
+
+    /**
+     * Takes a permit for a new request without waiting. The listener container is paused when the last permit is
+     * taken, and records it has already polled are received again when it is resumed
+     *
+     * @return true if the permit was taken
+     */
+    private boolean acquireSlot() {
+        boolean acquired = inFlightRequests.tryAcquire();
+        if (inFlightRequests.availablePermits() == 0) {
+            pause();
+            // a request may have finished before the container was paused, nothing would resume it then
+            if (inFlightRequests.availablePermits() > 0) {
+                resume();
+            }
+        }
+        return acquired;
+    }
+
+    /**
+     * Returns the permit of a processed request, resumes the listener container and acknowledges the record
+     *
+     * @param record record of the processed request
+     */
+    private void finish(ConsumerRecord<String, String> record) {
+        inFlightRequests.release();
+        resume();
+        offsetTracker.complete(record);
+    }
+
+    private void pause() {
+        for (String listenerId : listenerIds) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (container != null && !container.isPauseRequested()) {
+                LOG.info("Too many requests are in progress, listener {} is paused", listenerId);
+                container.pause();
+            }
+        }
+    }
+
+    private void resume() {
+        for (String listenerId : listenerIds) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (container != null && container.isPauseRequested()) {
+                LOG.info("Listener {} is resumed", listenerId);
+                container.resume();
+            }
         }
     }
 }
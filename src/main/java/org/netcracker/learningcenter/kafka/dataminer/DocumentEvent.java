@@ -0,0 +1,152 @@
+package org.netcracker.learningcenter.kafka.dataminer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.netcracker.learningcenter.enums.JobStatus;
+import org.netcracker.learningcenter.enums.Source;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Event sent to the document events topic when a document of a request has been indexed, or when the collection
+ * of the request has finished (completed, failed or was cancelled)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DocumentEvent {
+
+    /**
+     * Type of the event about an indexed document
+     */
+    public static final String DOCUMENT = "document";
+
+    /**
+     * Type of the event marking the end of the collection that has collected all data
+     */
+    public static final String COMPLETED = "completed";
+
+    /**
+     * Type of the event marking the end of the collection that has stopped due to an error
+     */
+    public static final String FAILED = "failed";
+
+    /**
+     * Type of the event marking the end of the collection that was cancelled
+     */
+    public static final String CANCELLED = "cancelled";
+
+    /**
+     * Type of the event
+     */
+    private final String type;
+
+    /**
+     * Id of the request
+     */
+    private final String requestId;
+
+    /**
+     * Elasticsearch index of the document
+     */
+    private String index;
+
+    /**
+     * Id of the document
+     */
+    private String documentId;
+
+    /**
+     * Source the document was collected from
+     */
+    private Source source;
+
+    /**
+     * Modification date of the document
+     */
+    private LocalDate modificationDate;
+
+    /**
+     * Ids of already indexed documents that also belong to the request (only in the completed event)
+     */
+    private List<String> linkedDocumentIds;
+
+    /**
+     * Cause of the failure (only in the failed event)
+     */
+    private String error;
+
+    /**
+     * Creates an event about an indexed document
+     *
+     * @param requestId id of the request
+     * @param index Elasticsearch index of the document
+     * @param documentId id of the document
+     * @param source source the document was collected from
+     * @param modificationDate modification date of the document
+     * @return created event
+     */
+    public static DocumentEvent document(String requestId, String index, String documentId, Source source,
+                                         LocalDate modificationDate) {
+        DocumentEvent event = new DocumentEvent(DOCUMENT, requestId);
+        event.index = index;
+        event.documentId = documentId;
+        event.source = source;
+        event.modificationDate = modificationDate;
+        return event;
+    }
+
+    /**
+     * Creates an event marking the end of the collection. The type of the event is the final status of the
+     * collection
+     *
+     * @param requestId id of the request
+     * @param status final status of the collection
+     * @param linkedDocumentIds ids of already indexed documents that also belong to the request
+     * @param error cause of the failure
+     * @return created event
+     */
+    public static DocumentEvent finished(String requestId, JobStatus status, List<String> linkedDocumentIds,
+                                         String error) {
+        DocumentEvent event = new DocumentEvent(status.name().toLowerCase(Locale.ROOT), requestId);
+        event.linkedDocumentIds = linkedDocumentIds;
+        event.error = error;
+        return event;
+    }
+
+    private DocumentEvent(String type, String requestId) {
+        this.type = type;
+        this.requestId = requestId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public LocalDate getModificationDate() {
+        return modificationDate;
+    }
+
+    public List<String> getLinkedDocumentIds() {
+        return linkedDocumentIds;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,169 @@
+package org.netcracker.learningcenter.kafka.dataminer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.elasticsearch.BulkItem;
+import org.netcracker.learningcenter.elasticsearch.BulkItemListener;
+import org.netcracker.learningcenter.enums.JobStatus;
+import org.netcracker.learningcenter.enums.Source;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends an event to the document events topic for every document indexed by DataMinerService, and an event marking
+ * the end of the collection of a request, whether it has completed, failed or was cancelled. Events are keyed by
+ * request id, so the events of a request keep their order. Nothing is sent while the events are disabled
+ */
+@Component
+public class DocumentEventPublisher {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Whether the events are sent
+     */
+    private final boolean enabled;
+
+    /**
+     * Topic with document events
+     */
+    private final String documentsTopic;
+
+    /**
+     * ObjectMapper instance. Used to serialize events
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Producer Kafka template for serialized events
+     */
+    private final KafkaTemplate<String, byte[]> byteArrayKafkaTemplate;
+
+    /**
+     * Creates a DocumentEventPublisher instance
+     *
+     * @param enabled whether the events are sent
+     * @param documentsTopic topic with document events
+     * @param objectMapper current ObjectMapper instance
+     * @param byteArrayKafkaTemplate current KafkaTemplate instance for byte arrays
+     */
+    @Autowired
+    public DocumentEventPublisher(@Value("${kafka.data-miner.documents.enabled}") boolean enabled,
+                                  @Value("${kafka.data-miner.documents}") String documentsTopic,
+                                  ObjectMapper objectMapper,
+                                  @Qualifier("byteArrayKafkaTemplate")
+                                          KafkaTemplate<String, byte[]> byteArrayKafkaTemplate) {
+        this.enabled = enabled;
+        this.documentsTopic = documentsTopic;
+        this.objectMapper = objectMapper;
+        this.byteArrayKafkaTemplate = byteArrayKafkaTemplate;
+    }
+
+    /**
+     * Creates a session that has to be registered as a listener of the bulk indexer the documents are added to.
+     * The event of a document is sent when Elasticsearch has confirmed the document
+     *
+     * @param requestId id of the request
+     * @param source source the documents are collected from
+     * @return new session
+     */
+    public Session newSession(String requestId, Source source) {
+        return new Session(requestId, source);
+    }
+
+    /**
+     * Sends the event marking the end of the collection of the request
+     *
+     * @param requestId id of the request
+     * @param status final status of the collection
+     * @param linkedDocumentIds ids of already indexed documents that also belong to the request, null if the
+     * collection has not completed
+     * @param error cause of the failure, null if the collection has not failed
+     */
+    public void publishFinished(String requestId, JobStatus status, List<String> linkedDocumentIds, String error) {
+        if (enabled) {
+            publish(DocumentEvent.finished(requestId, status, linkedDocumentIds, error));
+        }
+    }
+
+    /**
+     * Sends the event to the document events topic
+     *
+     * @param event event to send
+     */
+    private void publish(DocumentEvent event) {
+        byte[] value;
+        try {
+            value = objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            LOG.error("Could not serialize {} event of request {}", event.getType(), event.getRequestId(), e);
+            return;
+        }
+        byteArrayKafkaTemplate.send(documentsTopic, event.getRequestId(), value).addCallback(
+                result -> LOG.debug("Sent {} event of request {}", event.getType(), event.getRequestId()),
+                e -> LOG.error("Unable to send {} event of request {} due to : {}", event.getType(),
+                        event.getRequestId(), e.getMessage()));
+    }
+
+    /**
+     * Sends events about the documents added to one bulk indexer
+     */
+    public class Session implements BulkItemListener {
+
+        /**
+         * Id of the request
+         */
+        private final String requestId;
+
+        /**
+         * Source the documents are collected from
+         */
+        private final Source source;
+
+        /**
+         * Events of the documents waiting for Elasticsearch by document id
+         */
+        private final Map<String, DocumentEvent> pendingEvents = new ConcurrentHashMap<>();
+
+        private Session(String requestId, Source source) {
+            this.requestId = requestId;
+            this.source = source;
+        }
+
+        /**
+         * Registers a document added to the bulk indexer
+         *
+         * @param index Elasticsearch index of the document
+         * @param documentId id of the document
+         * @param modificationDate modification date of the document
+         */
+        public void documentAdded(String index, String documentId, LocalDate modificationDate) {
+            if (enabled) {
+                pendingEvents.put(documentId,
+                        DocumentEvent.document(requestId, index, documentId, source, modificationDate));
+            }
+        }
+
+        @Override
+        public void onIndexed(BulkItem item) {
+            DocumentEvent event = pendingEvents.remove(item.getId());
+            if (event != null) {
+                publish(event);
+            }
+        }
+
+        @Override
+        public void onFailure(BulkItem item, String reason) {
+            pendingEvents.remove(item.getId());
+        }
+    }
+}
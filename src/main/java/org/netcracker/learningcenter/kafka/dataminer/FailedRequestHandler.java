@@ -0,0 +1,210 @@
+package org.netcracker.learningcenter.kafka.dataminer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Sends failed requests to the retry topics and the dead-letter topic. A request that has failed for the n-th time
+ * is sent to the n-th retry topic, the delay of every next retry topic is longer by the multiplier. A request that
+ * can not succeed, or that has failed in the last retry topic, is sent to the dead-letter topic. Records keep the
+ * original payload, and their headers describe the original record and the failure
+ */
+@Component
+public class FailedRequestHandler {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Header with the number of failed attempts
+     */
+    public static final String ATTEMPTS_HEADER = "data-miner-attempts";
+
+    /**
+     * Header with the time (epoch milliseconds) before which the request must not be retried
+     */
+    public static final String NOT_BEFORE_HEADER = "data-miner-not-before";
+
+    /**
+     * Retry topics in the order they are used
+     */
+    private final List<String> retryTopics;
+
+    /**
+     * Dead-letter topic
+     */
+    private final String deadLetterTopic;
+
+    /**
+     * Delay (in milliseconds) of the first retry topic
+     */
+    private final long initialInterval;
+
+    /**
+     * Multiplier of the delay of every next retry topic
+     */
+    private final double multiplier;
+
+    /**
+     * Max delay (in milliseconds) of a retry topic
+     */
+    private final long maxInterval;
+
+    /**
+     * Producer Kafka template for the original payloads
+     */
+    private final KafkaTemplate<String, byte[]> byteArrayKafkaTemplate;
+
+    /**
+     * Creates a FailedRequestHandler instance
+     *
+     * @param retryTopics retry topics in the order they are used
+     * @param deadLetterTopic dead-letter topic
+     * @param initialInterval delay (in milliseconds) of the first retry topic
+     * @param multiplier multiplier of the delay of every next retry topic
+     * @param maxInterval max delay (in milliseconds) of a retry topic
+     * @param byteArrayKafkaTemplate current KafkaTemplate instance for byte arrays
+     */
+    @Autowired
+    public FailedRequestHandler(@Value("#{'${kafka.data-miner.request.retry-topics}'.split(',')}")
+                                        List<String> retryTopics,
+                                @Value("${kafka.data-miner.request.dlt}") String deadLetterTopic,
+                                @Value("${kafka.data-miner.request.retry.initial-interval}") long initialInterval,
+                                @Value("${kafka.data-miner.request.retry.multiplier}") double multiplier,
+                                @Value("${kafka.data-miner.request.retry.max-interval}") long maxInterval,
+                                @Qualifier("byteArrayKafkaTemplate")
+                                        KafkaTemplate<String, byte[]> byteArrayKafkaTemplate) {
+        this.retryTopics = retryTopics;
+        this.deadLetterTopic = deadLetterTopic;
+        this.initialInterval = initialInterval;
+        this.multiplier = multiplier;
+        this.maxInterval = maxInterval;
+        this.byteArrayKafkaTemplate = byteArrayKafkaTemplate;
+    }
+
+    /**
+     * Sends the failed request to the next retry topic, or to the dead-letter topic if it has no retries left
+     *
+     * @param record record of the failed request
+     * @param cause cause of the failure
+     * @return result of the send
+     */
+    public ListenableFuture<SendResult<String, byte[]>> retry(ConsumerRecord<String, String> record,
+                                                              Throwable cause) {
+        int attempt = getAttempts(record);
+        if (attempt >= retryTopics.size()) {
+            return deadLetter(record, cause);
+        }
+        long delay = (long) Math.min(maxInterval, initialInterval * Math.pow(multiplier, attempt));
+        String topic = retryTopics.get(attempt);
+        LOG.warn("Request from {}-{}@{} has failed, it is retried in {} ms from {}: {}", record.topic(),
+                record.partition(), record.offset(), delay, topic, cause.getMessage());
+
+        Headers headers = createHeaders(record, cause, attempt + 1);
+        headers.add(NOT_BEFORE_HEADER, Long.toString(System.currentTimeMillis() + delay)
+                .getBytes(StandardCharsets.UTF_8));
+        return send(topic, record, headers);
+    }
+
+    /**
+     * Sends the request that can not succeed to the dead-letter topic
+     *
+     * @param record record of the failed request
+     * @param cause cause of the failure
+     * @return result of the send
+     */
+    public ListenableFuture<SendResult<String, byte[]>> deadLetter(ConsumerRecord<String, String> record,
+                                                                   Throwable cause) {
+        LOG.error("Request from {}-{}@{} is sent to {}: {}", record.topic(), record.partition(), record.offset(),
+                deadLetterTopic, cause.getMessage());
+        return send(deadLetterTopic, record, createHeaders(record, cause, getAttempts(record) + 1));
+    }
+
+    /**
+     * Gets the time left before the request from a retry topic may be retried
+     *
+     * @param record record from a retry topic
+     * @return time (in milliseconds) left, 0 if the request may be retried now
+     */
+    public long getRemainingDelay(ConsumerRecord<String, String> record) {
+        Header notBefore = record.headers().lastHeader(NOT_BEFORE_HEADER);
+        if (notBefore == null) {
+            return 0;
+        }
+        long time = Long.parseLong(new String(notBefore.value(), StandardCharsets.UTF_8));
+        return Math.max(0, time - System.currentTimeMillis());
+    }
+
+    /**
+     * @param record record of the request
+     * @return number of failed attempts before the record
+     */
+    private int getAttempts(ConsumerRecord<String, String> record) {
+        Header attempts = record.headers().lastHeader(ATTEMPTS_HEADER);
+        return attempts == null ? 0 : Integer.parseInt(new String(attempts.value(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates headers of the failed request. Headers describing the original record are copied from the record if
+     * it came from a retry topic
+     *
+     * @param record record of the failed request
+     * @param cause cause of the failure
+     * @param attempts number of failed attempts
+     * @return created headers
+     */
+    private Headers createHeaders(ConsumerRecord<String, String> record, Throwable cause, int attempts) {
+        Headers headers = new RecordHeaders();
+        copyOrAdd(headers, record, KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic());
+        copyOrAdd(headers, record, KafkaHeaders.DLT_ORIGINAL_PARTITION, Integer.toString(record.partition()));
+        copyOrAdd(headers, record, KafkaHeaders.DLT_ORIGINAL_OFFSET, Long.toString(record.offset()));
+        copyOrAdd(headers, record, KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, Long.toString(record.timestamp()));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+                String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_EXCEPTION_STACKTRACE, getStackTrace(cause).getBytes(StandardCharsets.UTF_8));
+        headers.add(ATTEMPTS_HEADER, Integer.toString(attempts).getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    private void copyOrAdd(Headers headers, ConsumerRecord<String, String> record, String key, String value) {
+        Header header = record.headers().lastHeader(key);
+        headers.add(key, header != null ? header.value() : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String getStackTrace(Throwable cause) {
+        StringWriter stackTrace = new StringWriter();
+        cause.printStackTrace(new PrintWriter(stackTrace));
+        return stackTrace.toString();
+    }
+
+    /**
+     * Sends the original payload of the request to the topic
+     *
+     * @param topic topic to send to
+     * @param record record of the failed request
+     * @param headers headers of the new record
+     * @return result of the send
+     */
+    private ListenableFuture<SendResult<String, byte[]>> send(String topic, ConsumerRecord<String, String> record,
+                                                              Headers headers) {
+        byte[] value = record.value() == null ? null : record.value().getBytes(StandardCharsets.UTF_8);
+        return byteArrayKafkaTemplate.send(new ProducerRecord<>(topic, null, record.key(), value, headers));
+    }
+}
@@ -0,0 +1,93 @@
+package org.netcracker.learningcenter.kafka.dataminer;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Acknowledges records that are processed out of order. A record is acknowledged only when all earlier records of
+ * its partition have been processed too, so the committed offset never skips a record that is still in progress.
+ * The tracker is registered as the rebalance listener of the manual acknowledgment containers, and forgets the
+ * records of revoked partitions: they are received again by the new owner of the partition
+ */
+@Component
+public class OrderedOffsetTracker implements ConsumerRebalanceListener {
+
+    /**
+     * Records in progress by partition, every record is mapped to its acknowledgment and a processed flag
+     */
+    private final Map<TopicPartition, NavigableMap<Long, PendingRecord>> partitions = new HashMap<>();
+
+    /**
+     * Registers a received record. Records have to be registered in the order they were received
+     *
+     * @param record received record
+     * @param acknowledgment acknowledgment of the record
+     */
+    public synchronized void register(ConsumerRecord<?, ?> record, Acknowledgment acknowledgment) {
+        partitions.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), p -> new TreeMap<>())
+                .put(record.offset(), new PendingRecord(acknowledgment));
+    }
+
+    /**
+     * Marks the record as processed and acknowledges the latest record before which every record of the partition
+     * has been processed
+     *
+     * @param record processed record
+     */
+    public synchronized void complete(ConsumerRecord<?, ?> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        NavigableMap<Long, PendingRecord> pending = partitions.get(partition);
+        if (pending == null || !pending.containsKey(record.offset())) {
+            return;
+        }
+        pending.get(record.offset()).processed = true;
+
+        Acknowledgment acknowledgment = null;
+        while (!pending.isEmpty() && pending.firstEntry().getValue().processed) {
+            acknowledgment = pending.pollFirstEntry().getValue().acknowledgment;
+        }
+        if (pending.isEmpty()) {
+            partitions.remove(partition);
+        }
+        // acknowledgments are queued in the order of offsets while the lock is held
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    /**
+     * Forgets the records of the revoked partitions. Their acknowledgments belong to the consumer that has lost the
+     * partitions, so records of these partitions that are completed later are not acknowledged
+     *
+     * @param revokedPartitions revoked partitions
+     */
+    @Override
+    public synchronized void onPartitionsRevoked(Collection<TopicPartition> revokedPartitions) {
+        revokedPartitions.forEach(partitions::remove);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> assignedPartitions) {
+    }
+
+    /**
+     * Record that is being processed
+     */
+    private static class PendingRecord {
+        private final Acknowledgment acknowledgment;
+        private boolean processed;
+
+        PendingRecord(Acknowledgment acknowledgment) {
+            this.acknowledgment = acknowledgment;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.netcracker.learningcenter.reader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Input stream that fails every read after it has been cancelled, so a reader stops as soon as it asks for more
+ * content. It also measures the time spent waiting for the underlying stream
+ */
+class CancellableInputStream extends FilterInputStream {
+    private volatile boolean cancelled;
+
+    /**
+     * Time (in nanoseconds) spent in reads of the underlying stream. It is only written by the reading thread
+     */
+    private volatile long readTime;
+
+    CancellableInputStream(InputStream in) {
+        super(in);
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return time (in nanoseconds) spent in reads of the underlying stream so far
+     */
+    long getReadTime() {
+        return readTime;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkCancelled();
+        long start = System.nanoTime();
+        try {
+            return in.read();
+        } finally {
+            readTime += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkCancelled();
+        long start = System.nanoTime();
+        try {
+            return in.read(b, off, len);
+        } finally {
+            readTime += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkCancelled();
+        long start = System.nanoTime();
+        try {
+            return in.skip(n);
+        } finally {
+            readTime += System.nanoTime() - start;
+        }
+    }
+
+    private void checkCancelled() throws InterruptedIOException {
+        if (cancelled) {
+            throw new InterruptedIOException("Text extraction was cancelled");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.netcracker.learningcenter.reader;
+
+import org.apache.poi.hwpf.extractor.WordExtractor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Extracts text from legacy Word (.doc) documents
+ */
+@Component
+public class DocFileReader implements Reader {
+    @Override
+    public String read(InputStream inputStream) throws IOException {
+        try (WordExtractor extractor = new WordExtractor(inputStream)) {
+            return extractor.getText();
+        }
+    }
+
+    @Override
+    public Set<String> getExtensions() {
+        return Collections.singleton("doc");
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return Collections.singleton("application/msword");
+    }
+}
@@ -1,27 +1,112 @@
 package org.netcracker.learningcenter.reader;
 
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.io.FileInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+/**
+ * Extracts text from DOCX documents. The document parts are read straight from the zip with a StAX parser, the POI
+ * object model is not built. Text of the body (including tables) is followed by the text of headers and footers
+ */
 @Component
 public class DocxFileReader implements Reader {
+
+    /**
+     * WordprocessingML namespace
+     */
+    private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String DOCUMENT_PART = "word/document.xml";
+
+    private static final Pattern HEADER_FOOTER_PART = Pattern.compile("word/(header|footer)\\d*\\.xml");
+
+    private final XMLInputFactory xmlInputFactory = XmlReaders.createInputFactory();
+
     @Override
-    public String read(File file) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (FileInputStream fis = new FileInputStream(file.getAbsolutePath());
-             XWPFDocument document = new XWPFDocument(fis)) {
-            List<XWPFParagraph> paragraphs = document.getParagraphs();
-            for (XWPFParagraph para : paragraphs) {
-                sb.append(para.getText());
+    public String read(InputStream inputStream) throws IOException {
+        StringBuilder body = new StringBuilder();
+        StringBuilder headersAndFooters = new StringBuilder();
+
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (entry.getName().equals(DOCUMENT_PART)) {
+                readPart(zip, body);
+            } else if (HEADER_FOOTER_PART.matcher(entry.getName()).matches()) {
+                readPart(zip, headersAndFooters);
             }
         }
-        return sb.toString();
+        return body.append(headersAndFooters).toString();
     }
 
+    @Override
+    public Set<String> getExtensions() {
+        return Collections.singleton("docx");
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return Collections.singleton("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+    }
+
+    /**
+     * Appends text of the document part. Paragraphs and table rows end with a line break, table cells are
+     * separated with a tab
+     *
+     * @param part content of the part
+     * @param sb builder the text is appended to
+     */
+    private void readPart(InputStream part, StringBuilder sb) throws IOException {
+        try {
+            XMLStreamReader xml = XmlReaders.createPartReader(xmlInputFactory, part);
+            try {
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && WORD_NAMESPACE.equals(xml.getNamespaceURI())) {
+                        switch (xml.getLocalName()) {
+                            case "t":
+                                sb.append(xml.getElementText());
+                                break;
+                            case "tab":
+                                sb.append('\t');
+                                break;
+                            case "br":
+                            case "cr":
+                                sb.append('\n');
+                                break;
+                            default:
+                                break;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT
+                            && WORD_NAMESPACE.equals(xml.getNamespaceURI())) {
+                        switch (xml.getLocalName()) {
+                            case "p":
+                            case "tr":
+                                sb.append('\n');
+                                break;
+                            case "tc":
+                                sb.append('\t');
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse DOCX part", e);
+        }
+    }
 }
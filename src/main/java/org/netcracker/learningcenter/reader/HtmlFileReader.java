@@ -0,0 +1,31 @@
+package org.netcracker.learningcenter.reader;
+
+import org.jsoup.Jsoup;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Extracts visible text from HTML pages. The charset is taken from the page (BOM or meta tag), UTF-8 otherwise
+ */
+@Component
+public class HtmlFileReader implements Reader {
+    @Override
+    public String read(InputStream inputStream) throws IOException {
+        return Jsoup.parse(inputStream, null, "").text();
+    }
+
+    @Override
+    public Set<String> getExtensions() {
+        return new HashSet<>(Arrays.asList("html", "htm"));
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return new HashSet<>(Arrays.asList("text/html", "application/xhtml+xml"));
+    }
+}
@@ -0,0 +1,45 @@
+package org.netcracker.learningcenter.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Extracts string values from JSON documents with a streaming parser, one value per line. Field names, numbers and
+ * other values are not indexed
+ */
+@Component
+public class JsonFileReader implements Reader {
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    @Override
+    public String read(InputStream inputStream) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.VALUE_STRING) {
+                    sb.append(parser.getText()).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Set<String> getExtensions() {
+        return Collections.singleton("json");
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return Collections.singleton("application/json");
+    }
+}
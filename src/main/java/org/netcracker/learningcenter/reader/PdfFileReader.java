@@ -1,25 +1,84 @@
 package org.netcracker.learningcenter.reader;
 
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
 
+/**
+ * Extracts text from PDF documents page range by page range. The parsed document is kept in a scratch file once
+ * it outgrows the main memory limit, and the extraction stops when the text reaches the max number of characters
+ */
 @Component
 public class PdfFileReader implements Reader {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Number of pages extracted at once
+     */
+    private static final int PAGES_PER_RANGE = 10;
+
+    /**
+     * Max number of bytes of a document kept in main memory, the rest is kept in a temp file
+     */
+    private final long maxMainMemoryBytes;
+
+    /**
+     * Max number of characters extracted from one document
+     */
+    private final int maxCharacters;
+
+    /**
+     * Creates a PdfFileReader instance
+     *
+     * @param maxMainMemoryBytes max number of bytes of a document kept in main memory
+     * @param maxCharacters max number of characters extracted from one document
+     */
+    @Autowired
+    public PdfFileReader(@Value("${reader.pdf.max-main-memory}") long maxMainMemoryBytes,
+                         @Value("${reader.pdf.max-characters}") int maxCharacters) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.maxCharacters = maxCharacters;
+    }
+
     @Override
-    public String read(File file) throws IOException {
+    public String read(InputStream inputStream) throws IOException {
         StringBuilder sb = new StringBuilder();
-        try (PDDocument document = PDDocument.load(file)) {
+        try (PDDocument document = PDDocument.load(inputStream, MemoryUsageSetting.setupMixed(maxMainMemoryBytes))) {
             PDFTextStripper stripper = new PDFTextStripper();
-            String[] text = stripper.getText(document).split("\\r\\n");
-            for (String line : text) {
-                sb.append(line);
+            int pages = document.getNumberOfPages();
+            for (int startPage = 1; startPage <= pages; startPage += PAGES_PER_RANGE) {
+                stripper.setStartPage(startPage);
+                stripper.setEndPage(Math.min(startPage + PAGES_PER_RANGE - 1, pages));
+                sb.append(stripper.getText(document));
+                if (sb.length() >= maxCharacters) {
+                    LOG.warn("PDF text was truncated to {} characters after page {} of {}", maxCharacters,
+                            stripper.getEndPage(), pages);
+                    sb.setLength(maxCharacters);
+                    break;
+                }
             }
         }
         return sb.toString();
     }
+
+    @Override
+    public Set<String> getExtensions() {
+        return Collections.singleton("pdf");
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return Collections.singleton("application/pdf");
+    }
 }
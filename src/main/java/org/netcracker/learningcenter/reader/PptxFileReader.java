@@ -0,0 +1,93 @@
+package org.netcracker.learningcenter.reader;
+
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Extracts text from PowerPoint (.pptx) presentations. Slides are parsed straight from the zip with a StAX parser
+ * and their text is returned in the slide order
+ */
+@Component
+public class PptxFileReader implements Reader {
+
+    /**
+     * DrawingML namespace, text of the slides is kept in its elements
+     */
+    private static final String DRAWING_NAMESPACE = "http://schemas.openxmlformats.org/drawingml/2006/main";
+
+    private static final Pattern SLIDE_PART = Pattern.compile("ppt/slides/slide(\\d+)\\.xml");
+
+    private final XMLInputFactory xmlInputFactory = XmlReaders.createInputFactory();
+
+    @Override
+    public String read(InputStream inputStream) throws IOException {
+        Map<Integer, String> slides = new TreeMap<>();
+
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            Matcher matcher = SLIDE_PART.matcher(entry.getName());
+            if (matcher.matches()) {
+                slides.put(Integer.parseInt(matcher.group(1)), readSlide(zip));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String slide : slides.values()) {
+            sb.append(slide).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Set<String> getExtensions() {
+        return Collections.singleton("pptx");
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return Collections.singleton("application/vnd.openxmlformats-officedocument.presentationml.presentation");
+    }
+
+    /**
+     * @param slide content of the slide part
+     * @return text of the slide, paragraphs end with a line break
+     */
+    private String readSlide(InputStream slide) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try {
+            XMLStreamReader xml = XmlReaders.createPartReader(xmlInputFactory, slide);
+            try {
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && DRAWING_NAMESPACE.equals(xml.getNamespaceURI())
+                            && xml.getLocalName().equals("t")) {
+                        sb.append(xml.getElementText());
+                    } else if (event == XMLStreamConstants.END_ELEMENT
+                            && DRAWING_NAMESPACE.equals(xml.getNamespaceURI()) && xml.getLocalName().equals("p")) {
+                        sb.append('\n');
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse PPTX slide", e);
+        }
+        return sb.toString();
+    }
+}
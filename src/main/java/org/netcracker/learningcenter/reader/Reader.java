@@ -1,9 +1,43 @@
 package org.netcracker.learningcenter.reader;
 
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
 
+/**
+ * Extracts text from files of some types. Reader beans are registered in ReaderFactory by their extensions and
+ * MIME types
+ */
 public interface Reader {
-    String read(File file) throws IOException;
+
+    /**
+     * Extracts text from the stream. The stream is not closed by the reader
+     *
+     * @param inputStream file content
+     * @return extracted text
+     */
+    String read(InputStream inputStream) throws IOException;
+
+    default String read(File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return read(inputStream);
+        }
+    }
+
+    /**
+     * @return lower case extensions (without the dot) of the files the reader supports
+     */
+    Set<String> getExtensions();
+
+    /**
+     * @return MIME types of the content the reader supports, used if the file extension is unknown
+     */
+    default Set<String> getMimeTypes() {
+        return Collections.emptySet();
+    }
 }
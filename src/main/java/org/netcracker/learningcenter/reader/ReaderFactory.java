@@ -1,31 +1,321 @@
 package org.netcracker.learningcenter.reader;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.netcracker.learningcenter.exceptions.ReaderNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Registry of all Reader beans. A reader is looked up by the file extension, and by the MIME type sniffed from the
+ * beginning of the content if the extension is unknown
+ */
 @Component
 public class ReaderFactory {
-    private TxtFileReader txtFileReader;
-    private PdfFileReader pdfFileReader;
-    private DocxFileReader docxFileReader;
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Number of bytes examined to sniff the MIME type
+     */
+    private static final int SNIFF_LENGTH = 16;
+
+    /**
+     * Max number of bytes examined to find the type of the document in a ZIP or OLE2 container
+     */
+    private static final int CONTAINER_SNIFF_LENGTH = 65536;
+
+    /**
+     * Size of a directory entry of an OLE2 container
+     */
+    private static final int OLE2_DIRECTORY_ENTRY_SIZE = 128;
+
+    private final Map<String, Reader> readersByExtension = new HashMap<>();
+    private final Map<String, Reader> readersByMimeType = new HashMap<>();
 
     @Autowired
-    public ReaderFactory(TxtFileReader txtFileReader, PdfFileReader pdfFileReader, DocxFileReader docxFileReader) {
-        this.txtFileReader = txtFileReader;
-        this.pdfFileReader = pdfFileReader;
-        this.docxFileReader = docxFileReader;
+    public ReaderFactory(List<Reader> readers) {
+        for (Reader reader : readers) {
+            for (String extension : reader.getExtensions()) {
+                register(readersByExtension, extension.toLowerCase(Locale.ROOT), reader);
+            }
+            for (String mimeType : reader.getMimeTypes()) {
+                register(readersByMimeType, mimeType, reader);
+            }
+        }
+        LOG.info("Registered readers for extensions {}", readersByExtension.keySet());
+    }
+
+    private void register(Map<String, Reader> readers, String key, Reader reader) {
+        Reader registered = readers.putIfAbsent(key, reader);
+        if (registered != null) {
+            throw new IllegalStateException("Both " + registered.getClass().getSimpleName() + " and "
+                    + reader.getClass().getSimpleName() + " are registered for " + key);
+        }
     }
 
+    /**
+     * Gets the reader by the file extension
+     *
+     * @param filename name of the file
+     * @return reader of the file
+     * @throws ReaderNotFoundException if no reader supports the extension
+     */
     public Reader getReader(String filename) throws ReaderNotFoundException {
-        if (filename.endsWith(".txt")) {
-            return txtFileReader;
-        } else if (filename.endsWith(".pdf")) {
-            return pdfFileReader;
-        } else if (filename.endsWith(".docx")) {
-            return docxFileReader;
-        } else {
+        Reader reader = readersByExtension.get(getExtension(filename));
+        if (reader == null) {
             throw new ReaderNotFoundException("No reader found for file " + filename + ".Unsupported extension.");
         }
+        return reader;
+    }
+
+    /**
+     * Checks whether the file may be read before its content is known: a reader supports its extension, or it has
+     * no extension, so its type is sniffed from the content
+     *
+     * @param filename name of the file
+     * @return false if no reader supports the file
+     */
+    public boolean isSupported(String filename) {
+        String extension = getExtension(filename);
+        return extension.isEmpty() || readersByExtension.containsKey(extension);
+    }
+
+    /**
+     * Gets the reader by the file extension, or by the MIME type of the content if the extension is unknown
+     *
+     * @param filename name of the file
+     * @param content file content, it is sniffed only if it supports mark and reset
+     * @return reader of the file
+     * @throws ReaderNotFoundException if no reader supports the file
+     */
+    public Reader getReader(String filename, InputStream content) throws ReaderNotFoundException {
+        Reader reader = readersByExtension.get(getExtension(filename));
+        if (reader == null && content.markSupported()) {
+            String mimeType = sniffMimeType(content);
+            if (mimeType != null) {
+                reader = readersByMimeType.get(mimeType);
+            }
+        }
+        if (reader == null) {
+            throw new ReaderNotFoundException("No reader found for file " + filename + ".Unsupported type.");
+        }
+        return reader;
+    }
+
+    private String getExtension(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 ? "" : filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Guesses the MIME type by the magic bytes of the content. The type of a document in a ZIP or OLE2 container is
+     * guessed by the names of the container entries, only the beginning of the content is examined. The stream is
+     * reset to the beginning
+     *
+     * @param content file content supporting mark and reset
+     * @return MIME type, or null if it is unknown
+     */
+    private String sniffMimeType(InputStream content) {
+        try {
+            content.mark(CONTAINER_SNIFF_LENGTH);
+            byte[] header = new byte[SNIFF_LENGTH];
+            int length = readFully(content, header);
+            content.reset();
+
+            if (startsWith(header, length, '%', 'P', 'D', 'F')) {
+                return "application/pdf";
+            }
+            if (startsWith(header, length, 'P', 'K', 0x03, 0x04)) {
+                String mimeType = sniffZipMimeType(content);
+                content.reset();
+                return mimeType;
+            }
+            if (startsWith(header, length, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+                byte[] container = new byte[CONTAINER_SNIFF_LENGTH];
+                int containerLength = readFully(content, container);
+                content.reset();
+                return sniffOle2MimeType(container, containerLength);
+            }
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(header[i])) {
+                    if (header[i] == '{' || header[i] == '[') {
+                        return "application/json";
+                    }
+                    break;
+                }
+            }
+            return URLConnection.guessContentTypeFromStream(content);
+        } catch (IOException e) {
+            LOG.debug("Could not sniff MIME type", e);
+            return null;
+        }
+    }
+
+    /**
+     * Guesses the type of an Office Open XML document by the folders of its ZIP entries
+     *
+     * @param content ZIP content positioned at the beginning, it is read up to the container sniff length
+     * @return MIME type of the document, application/zip if it is not a known document, or null if the entries
+     * could not be read
+     */
+    private String sniffZipMimeType(InputStream content) {
+        try {
+            ZipInputStream zip = new ZipInputStream(new LimitedInputStream(content, CONTAINER_SNIFF_LENGTH));
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (name.startsWith("word/")) {
+                    return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+                }
+                if (name.startsWith("xl/")) {
+                    return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+                }
+                if (name.startsWith("ppt/")) {
+                    return "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+                }
+            }
+            return "application/zip";
+        } catch (IOException e) {
+            LOG.debug("Could not read ZIP entries", e);
+            return null;
+        }
+    }
+
+    /**
+     * Guesses the type of a legacy Office document by the stream names in the first sector of its OLE2 directory
+     *
+     * @param container beginning of the OLE2 content
+     * @param length number of bytes in the container array
+     * @return MIME type of the document, or null if it is unknown or its directory is not in the examined bytes
+     */
+    private String sniffOle2MimeType(byte[] container, int length) {
+        if (length < 52) {
+            return null;
+        }
+        int sectorShift = readUnsignedShort(container, 30);
+        if (sectorShift < 9 || sectorShift > 12) {
+            return null;
+        }
+        int sectorSize = 1 << sectorShift;
+        long directoryOffset = ((container[48] & 0xFFL) | (container[49] & 0xFFL) << 8 | (container[50] & 0xFFL) << 16
+                | (container[51] & 0xFFL) << 24) * sectorSize + sectorSize;
+        long directoryEnd = Math.min(directoryOffset + sectorSize, length);
+
+        for (long offset = directoryOffset; offset + OLE2_DIRECTORY_ENTRY_SIZE <= directoryEnd;
+             offset += OLE2_DIRECTORY_ENTRY_SIZE) {
+            int entry = (int) offset;
+            int nameLength = readUnsignedShort(container, entry + 64);
+            if (nameLength < 2 || nameLength > 64) {
+                continue;
+            }
+            String name = new String(container, entry, nameLength - 2, StandardCharsets.UTF_16LE);
+            switch (name) {
+                case "WordDocument":
+                    return "application/msword";
+                case "Workbook":
+                case "Book":
+                    return "application/vnd.ms-excel";
+                case "PowerPoint Document":
+                    return "application/vnd.ms-powerpoint";
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    private int readFully(InputStream content, byte[] buffer) throws IOException {
+        int length = 0;
+        int read;
+        while (length < buffer.length && (read = content.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+        }
+        return length;
+    }
+
+    private int readUnsignedShort(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) | (buffer[offset + 1] & 0xFF) << 8;
+    }
+
+    private boolean startsWith(byte[] header, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((header[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stream that ends after the limit, so the examined content stays within the marked part of the underlying
+     * stream. Closing it does not close the underlying stream
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private int remaining;
+
+        private LimitedInputStream(InputStream in, int limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
     }
 }
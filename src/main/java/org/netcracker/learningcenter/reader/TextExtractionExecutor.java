@@ -0,0 +1,182 @@
+package org.netcracker.learningcenter.reader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.exceptions.ExtractionTimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs readers on a thread pool sized to the number of processors. Text extraction is mostly CPU-bound, so the
+ * threads transferring files only hand their content over and wait. When all threads are busy and the queue is
+ * full, new files wait before they are accepted. Extraction that takes longer than the timeout is cancelled. The
+ * timeout is counted from the start of the extraction, and the time the reader waits for the content to arrive
+ * is not included, so a slow transfer of a large file does not use up the time of its extraction
+ */
+@Component
+public class TextExtractionExecutor {
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Places for running and queued extractions
+     */
+    private final Semaphore slots;
+
+    /**
+     * Extraction timeout of one file (in seconds), content read time excluded
+     */
+    private final long timeout;
+
+    /**
+     * Creates a TextExtractionExecutor instance
+     *
+     * @param threads number of extraction threads, 0 to use the number of processors
+     * @param queueCapacity max number of files waiting for a free thread
+     * @param timeout extraction timeout of one file (in seconds), content read time excluded
+     */
+    @Autowired
+    public TextExtractionExecutor(@Value("${reader.extraction.threads}") int threads,
+                                  @Value("${reader.extraction.queue-capacity}") int queueCapacity,
+                                  @Value("${reader.extraction.timeout}") long timeout) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("text-extraction-"));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.slots = new Semaphore(poolSize + queueCapacity);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Extracts text from the content with the reader and waits for the result
+     *
+     * @param reader reader of the file type
+     * @param content file content
+     * @param filename name of the file (used in messages)
+     * @return extracted text
+     * @throws ExtractionTimeoutException if the extraction has not finished in time. The content must not be
+     * used anymore, because the reader could still be reading it
+     * @throws InterruptedIOException if the calling thread was interrupted, the extraction is cancelled
+     * @throws IOException if the reader has failed
+     */
+    public String extract(Reader reader, InputStream content, String filename) throws IOException {
+        CancellableInputStream input = new CancellableInputStream(content);
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicLong startTime = new AtomicLong();
+        FutureTask<String> task = new FutureTask<>(() -> {
+            if (!started.compareAndSet(false, true)) {
+                throw new CancellationException();
+            }
+            startTime.set(System.nanoTime());
+            try {
+                return reader.read(input);
+            } finally {
+                slots.release();
+            }
+        });
+
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to extract text from " + filename);
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            throw new IOException(executor.isShutdown() ? "Text extraction is shut down"
+                    : "Text extraction capacity is exhausted, " + filename + " was rejected", e);
+        }
+
+        try {
+            return await(task, input, startTime);
+        } catch (TimeoutException e) {
+            cancel(task, input, started);
+            LOG.warn("Text extraction from {} has not finished in {} seconds and was cancelled", filename, timeout);
+            throw new ExtractionTimeoutException("Text extraction from " + filename + " has timed out");
+        } catch (InterruptedException e) {
+            cancel(task, input, started);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting text from " + filename);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not extract text from " + filename, e.getCause());
+        }
+    }
+
+    /**
+     * Waits for the result of the extraction. While the extraction is queued it is waited for without a limit, once
+     * it has started it is waited for until it has spent the timeout on anything but reading the content
+     *
+     * @param task extraction task
+     * @param input content read by the task
+     * @param startTime time the task has started, 0 until it starts
+     * @return extracted text
+     * @throws TimeoutException if the extraction has not finished in time
+     * @throws InterruptedException if the calling thread was interrupted
+     * @throws ExecutionException if the reader has failed
+     */
+    private String await(FutureTask<String> task, CancellableInputStream input, AtomicLong startTime)
+            throws TimeoutException, InterruptedException, ExecutionException {
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(timeout);
+        while (true) {
+            long start = startTime.get();
+            long remaining = start == 0 ? timeoutNanos
+                    : timeoutNanos - (System.nanoTime() - start - input.getReadTime());
+            try {
+                return task.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (start != 0 && System.nanoTime() - start - input.getReadTime() >= timeoutNanos) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels the extraction. A running extraction releases its slot when the reader returns, the slot of an
+     * extraction that has not started yet is released here
+     *
+     * @param task extraction task
+     * @param input content read by the task
+     * @param started whether the task has started, it is set here if the task has not started
+     */
+    private void cancel(FutureTask<String> task, CancellableInputStream input, AtomicBoolean started) {
+        input.cancel();
+        task.cancel(true);
+        executor.remove(task);
+        if (started.compareAndSet(false, true)) {
+            slots.release();
+        }
+    }
+
+    /**
+     * Cancels all extractions
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
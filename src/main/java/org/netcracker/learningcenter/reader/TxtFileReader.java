@@ -1,22 +1,218 @@
 package org.netcracker.learningcenter.reader;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
+/**
+ * Reads plain text files, Markdown and CSV files are indexed as plain text too. The charset is taken from the byte
+ * order mark, otherwise UTF-8 is used if the beginning of the file is valid UTF-8, and the fallback charset if it is
+ * not. Content is decoded in large chunks through one reusable buffer, whitespace and line separators are kept as
+ * they are
+ */
 @Component
 public class TxtFileReader implements Reader {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Size of the byte and char buffers
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Charset used if the content is not valid UTF-8
+     */
+    private final Charset fallbackCharset;
+
+    /**
+     * Max number of characters read from one file
+     */
+    private final int maxCharacters;
+
+    /**
+     * Creates a TxtFileReader instance
+     *
+     * @param fallbackCharset charset used if the content is not valid UTF-8
+     * @param maxCharacters max number of characters read from one file
+     */
+    @Autowired
+    public TxtFileReader(@Value("${reader.txt.fallback-charset}") String fallbackCharset,
+                         @Value("${reader.txt.max-characters}") int maxCharacters) {
+        this.fallbackCharset = Charset.forName(fallbackCharset);
+        this.maxCharacters = maxCharacters;
+    }
+
+    @Override
+    public String read(InputStream inputStream) throws IOException {
+        return decode(ByteBuffer.allocate(CHUNK_SIZE), Channels.newChannel(inputStream));
+    }
+
+    /**
+     * Local files are memory-mapped instead of being copied into a buffer
+     */
     @Override
     public String read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return decode(ByteBuffer.allocate(CHUNK_SIZE), channel);
+            }
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), null);
+        }
+    }
+
+    @Override
+    public Set<String> getExtensions() {
+        return new HashSet<>(Arrays.asList("txt", "log", "md", "markdown", "csv"));
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return new HashSet<>(Arrays.asList("text/plain", "text/markdown", "text/csv"));
+    }
+
+    /**
+     * Decodes the content
+     *
+     * @param bytes buffer with the whole content if there is no channel, otherwise empty buffer to read into
+     * @param channel channel the rest of the content is read from, or null
+     * @return decoded text
+     */
+    private String decode(ByteBuffer bytes, ReadableByteChannel channel) throws IOException {
+        boolean endOfInput = channel == null;
+        if (!endOfInput) {
+            bytes.limit(0);
+            endOfInput = fill(bytes, channel);
+        }
+
+        Charset charset = detectCharset(bytes);
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
         StringBuilder sb = new StringBuilder();
-        try (FileInputStream fis = new FileInputStream(file);
-             InputStreamReader isr = new InputStreamReader(fis);
-             BufferedReader br = new BufferedReader(isr)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line);
+
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (!append(chars, sb)) {
+                return sb.toString();
             }
+            if (result.isOverflow()) {
+                continue;
+            }
+            if (endOfInput) {
+                break;
+            }
+            endOfInput = fill(bytes, channel);
         }
+        decoder.flush(chars);
+        append(chars, sb);
         return sb.toString();
     }
+
+    /**
+     * Reads from the channel until the buffer is full or the channel ends. The buffer is ready to be read before
+     * and after the call
+     *
+     * @return true if the channel has ended
+     */
+    private boolean fill(ByteBuffer bytes, ReadableByteChannel channel) throws IOException {
+        bytes.compact();
+        try {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes) == -1) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            bytes.flip();
+        }
+    }
+
+    /**
+     * Moves decoded characters to the builder
+     *
+     * @return false if the max number of characters has been reached
+     */
+    private boolean append(CharBuffer chars, StringBuilder sb) {
+        chars.flip();
+        sb.append(chars);
+        chars.clear();
+        if (sb.length() >= maxCharacters) {
+            LOG.warn("Text was truncated to {} characters", maxCharacters);
+            sb.setLength(maxCharacters);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Detects the charset of the content and skips the byte order mark
+     *
+     * @param bytes beginning of the content
+     * @return detected charset
+     */
+    private Charset detectCharset(ByteBuffer bytes) {
+        if (startsWith(bytes, 0xEF, 0xBB, 0xBF)) {
+            bytes.position(bytes.position() + 3);
+            return StandardCharsets.UTF_8;
+        }
+        if (startsWith(bytes, 0xFE, 0xFF)) {
+            bytes.position(bytes.position() + 2);
+            return StandardCharsets.UTF_16BE;
+        }
+        if (startsWith(bytes, 0xFF, 0xFE)) {
+            bytes.position(bytes.position() + 2);
+            return StandardCharsets.UTF_16LE;
+        }
+
+        ByteBuffer sample = bytes.duplicate();
+        sample.limit(sample.position() + Math.min(sample.remaining(), CHUNK_SIZE));
+        try {
+            CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            CharBuffer out = CharBuffer.allocate(CHUNK_SIZE);
+            CoderResult result = utf8.decode(sample, out, false);
+            if (result.isError()) {
+                result.throwException();
+            }
+            return StandardCharsets.UTF_8;
+        } catch (CharacterCodingException e) {
+            return fallbackCharset;
+        }
+    }
+
+    private boolean startsWith(ByteBuffer bytes, int... prefix) {
+        if (bytes.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes.get(bytes.position() + i) & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,168 @@
+package org.netcracker.learningcenter.reader;
+
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Extracts cell values from Excel (.xlsx) workbooks. Sheets and the shared strings table are parsed straight from
+ * the zip with a StAX parser. The shared strings table usually follows the sheets in the zip, so sheet cells keep
+ * the index of their string and are resolved at the end. Cells are separated with a tab, rows with a line break
+ */
+@Component
+public class XlsxFileReader implements Reader {
+
+    /**
+     * SpreadsheetML namespace
+     */
+    private static final String SHEET_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final String SHARED_STRINGS_PART = "xl/sharedStrings.xml";
+
+    private static final Pattern SHEET_PART = Pattern.compile("xl/worksheets/sheet\\d+\\.xml");
+
+    private final XMLInputFactory xmlInputFactory = XmlReaders.createInputFactory();
+
+    @Override
+    public String read(InputStream inputStream) throws IOException {
+        List<String> sharedStrings = new ArrayList<>();
+        List<Object> cells = new ArrayList<>();
+
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        ZipEntry entry;
+        try {
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(SHARED_STRINGS_PART)) {
+                    readSharedStrings(zip, sharedStrings);
+                } else if (SHEET_PART.matcher(entry.getName()).matches()) {
+                    readSheet(zip, cells);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse XLSX part", e);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Object cell : cells) {
+            if (cell instanceof Integer) {
+                int index = (Integer) cell;
+                if (index >= 0 && index < sharedStrings.size()) {
+                    sb.append(sharedStrings.get(index));
+                }
+            } else {
+                sb.append(cell);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Set<String> getExtensions() {
+        return Collections.singleton("xlsx");
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return Collections.singleton("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    }
+
+    /**
+     * Reads the shared strings table, rich text runs of one string are joined
+     */
+    private void readSharedStrings(InputStream part, List<String> sharedStrings) throws XMLStreamException {
+        XMLStreamReader xml = XmlReaders.createPartReader(xmlInputFactory, part);
+        try {
+            StringBuilder string = new StringBuilder();
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT && SHEET_NAMESPACE.equals(xml.getNamespaceURI())) {
+                    if (xml.getLocalName().equals("si")) {
+                        string.setLength(0);
+                    } else if (xml.getLocalName().equals("t")) {
+                        string.append(xml.getElementText());
+                    } else if (xml.getLocalName().equals("rPh")) {
+                        skipElement(xml);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && SHEET_NAMESPACE.equals(xml.getNamespaceURI())
+                        && xml.getLocalName().equals("si")) {
+                    sharedStrings.add(string.toString());
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * Reads the cells of the sheet. A shared string cell is added as the Integer index of the string, other cells
+     * and separators are added as Strings
+     */
+    private void readSheet(InputStream part, List<Object> cells) throws XMLStreamException {
+        XMLStreamReader xml = XmlReaders.createPartReader(xmlInputFactory, part);
+        try {
+            String cellType = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT && SHEET_NAMESPACE.equals(xml.getNamespaceURI())) {
+                    switch (xml.getLocalName()) {
+                        case "c":
+                            cellType = xml.getAttributeValue(null, "t");
+                            break;
+                        case "v":
+                            String value = xml.getElementText();
+                            if ("s".equals(cellType)) {
+                                try {
+                                    cells.add(Integer.valueOf(value.trim()));
+                                } catch (NumberFormatException e) {
+                                    cells.add(value);
+                                }
+                            } else {
+                                cells.add(value);
+                            }
+                            break;
+                        case "t":
+                            cells.add(xml.getElementText());
+                            break;
+                        case "f":
+                            skipElement(xml);
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && SHEET_NAMESPACE.equals(xml.getNamespaceURI())) {
+                    if (xml.getLocalName().equals("c")) {
+                        cells.add("\t");
+                    } else if (xml.getLocalName().equals("row")) {
+                        cells.add("\n");
+                    }
+                }
+            }
+        } finally {
+            xml.close();
+        }
+    }
+
+    private void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
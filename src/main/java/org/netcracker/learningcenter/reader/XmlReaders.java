@@ -0,0 +1,43 @@
+package org.netcracker.learningcenter.reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * Helpers of the readers parsing XML parts of Office documents
+ */
+final class XmlReaders {
+
+    private XmlReaders() {
+    }
+
+    /**
+     * @return StAX factory with DTDs and external entities disabled
+     */
+    static XMLInputFactory createInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return xmlInputFactory;
+    }
+
+    /**
+     * Creates a parser of the current zip entry. The parser closes its stream at the end of the document, so the
+     * entry is shielded from closing to keep the zip readable
+     *
+     * @param xmlInputFactory StAX factory
+     * @param part content of the zip entry
+     * @return parser of the part
+     */
+    static XMLStreamReader createPartReader(XMLInputFactory xmlInputFactory, InputStream part)
+            throws XMLStreamException {
+        return xmlInputFactory.createXMLStreamReader(new FilterInputStream(part) {
+            @Override
+            public void close() {
+            }
+        });
+    }
+}
@@ -1,18 +1,20 @@
 package org.netcracker.learningcenter.services;
 
 import org.apache.commons.net.ftp.FTPFileFilter;
+import org.netcracker.learningcenter.exceptions.ReaderNotFoundException;
 import org.netcracker.learningcenter.reader.ReaderFactory;
+import org.netcracker.learningcenter.reader.TextExtractionExecutor;
 import org.netcracker.learningcenter.utils.FTPFileData;
-import org.netcracker.learningcenter.utils.FileUtils;
 import org.netcracker.learningcenter.utils.FtpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.time.Instant;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -20,8 +22,14 @@ public class FTPService {
     @Autowired
     private ReaderFactory readerFactory;
 
+    @Autowired
+    private FtpDownloadEngine ftpDownloadEngine;
+
+    @Autowired
+    private TextExtractionExecutor textExtractionExecutor;
+
     /**
-     * Method of obtaining data from files downloaded from the FTP server
+     * Method of obtaining data from files streamed from the FTP server. Files that can not be read are skipped
      *
      * @param client  FTP client for connecting to the FTP server and working with files on it
      * @param path    path to the directory on the FTP server where to look for files
@@ -29,26 +37,26 @@ public class FTPService {
      * @return list of FTPFileData objects that contain data received from files from the FTP server
      */
     public List<FTPFileData> getDataFromFiles(FtpClient client, String path, List<FTPFileFilter> filters) throws Exception {
-        List<FTPFileData> fileInfo = new ArrayList<>();
+        List<FTPFileData> fileInfo = Collections.synchronizedList(new ArrayList<>());
         try (FtpClient c = client) {
             c.open();
-            File tmpDir = Files.createTempDirectory("tmpFtpStorage").toFile();
-            String tmpFtpStorage = tmpDir.getAbsolutePath();
-            c.downloadFiles(path, filters, tmpFtpStorage);
-            List<File> list = FileUtils.listFilesForFolder(tmpFtpStorage);
-            for (File f : list) {
+            ftpDownloadEngine.download(c, path, filters, (remotePath, remoteFile, content) -> {
                 FTPFileData file = new FTPFileData();
-                file.setFilename(f.getName());
+                file.setFilename(remoteFile.getName());
                 file.setServer(c.getServer());
-                file.setText(readerFactory.getReader(f.getName()).read(f));
+                InputStream input = new BufferedInputStream(content);
+                try {
+                    file.setText(textExtractionExecutor.extract(readerFactory.getReader(remoteFile.getName(), input),
+                            input, remoteFile.getName()));
+                } catch (ReaderNotFoundException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
                 file.setModificationDate(
-                        Instant.ofEpochMilli(f.lastModified())
+                        remoteFile.getTimestamp().toInstant()
                                 .atZone(ZoneId.systemDefault())
                                 .toLocalDate());
                 fileInfo.add(file);
-                f.delete();
-            }
-            tmpDir.delete();
+            });
         }
         return fileInfo;
     }
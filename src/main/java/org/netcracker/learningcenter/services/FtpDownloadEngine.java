@@ -0,0 +1,212 @@
+package org.netcracker.learningcenter.services;
+
+import org.apache.commons.net.ftp.FTPFileFilter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.utils.FtpClient;
+import org.netcracker.learningcenter.utils.FtpFileConsumer;
+import org.netcracker.learningcenter.utils.FtpRemoteFile;
+import org.netcracker.learningcenter.utils.FtpSessionPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Transfers files from FTP servers over several sessions at the same time. Every server gets its own pool of
+ * sessions, the number of files transferred from one server at the same time is limited by its parallelism
+ */
+@Component
+public class FtpDownloadEngine {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Threads transferring files from all servers
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Number of files transferred from one server at the same time, if the server has no own setting
+     */
+    private final int defaultParallelism;
+
+    /**
+     * Parallelism of the particular servers
+     */
+    private final Map<String, Integer> serverParallelism;
+
+    /**
+     * Creates a FtpDownloadEngine instance
+     *
+     * @param threads max number of files transferred from all servers at the same time
+     * @param defaultParallelism number of files transferred from one server at the same time
+     * @param serverParallelism parallelism of the particular servers (server address to number of sessions)
+     */
+    @Autowired
+    public FtpDownloadEngine(@Value("${ftp.download.threads}") int threads,
+                             @Value("${ftp.download.parallelism}") int defaultParallelism,
+                             @Value("#{${ftp.download.server-parallelism}}") Map<String, Integer> serverParallelism) {
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("ftp-download-"));
+        threadPool.allowCoreThreadTimeOut(true);
+        this.executor = threadPool;
+        this.defaultParallelism = defaultParallelism;
+        this.serverParallelism = serverParallelism;
+    }
+
+    /**
+     * Lists the files using the opened client and transfers them to the consumer over a pool of sessions. The
+     * consumer is called from several threads at the same time. A new file is not started until one of the
+     * current transfers has been consumed, so a slow consumer slows down the transfers instead of piling up
+     * content in memory. A failed file is logged and skipped. If the transfers are interrupted, the running
+     * transfers are cancelled, and the method returns only after all of them have stopped
+     *
+     * @param client opened FTP client, it is used for listing only
+     * @param path path to the directory on the FTP server from which to transfer files
+     * @param filters a list of filters by which the file is checked before the transfer
+     * @param consumer consumer of the file contents
+     */
+    public void download(FtpClient client, String path, List<FTPFileFilter> filters, FtpFileConsumer consumer)
+            throws IOException, InterruptedException {
+        download(client, path, filters, file -> true, consumer);
+    }
+
+    /**
+     * Lists the files using the opened client and transfers the files accepted by the transfer filter to the
+     * consumer over a pool of sessions
+     *
+     * @param client opened FTP client, it is used for listing only
+     * @param path path to the directory on the FTP server from which to transfer files
+     * @param filters a list of filters by which the file is checked before the transfer
+     * @param transferFilter filter that knows the full path of the file (e.g. to skip files that have not changed)
+     * @param consumer consumer of the file contents
+     * @see #download(FtpClient, String, List, FtpFileConsumer)
+     */
+    public void download(FtpClient client, String path, List<FTPFileFilter> filters,
+                         Predicate<FtpRemoteFile> transferFilter, FtpFileConsumer consumer)
+            throws IOException, InterruptedException {
+        List<FtpRemoteFile> files = new ArrayList<>();
+        for (FtpRemoteFile file : client.listFiles(path, filters)) {
+            if (transferFilter.test(file)) {
+                files.add(file);
+            }
+        }
+        int parallelism = getParallelism(client.getServer());
+        LOG.info("Transferring {} files from {} over {} sessions", files.size(), client.getServer(), parallelism);
+
+        Semaphore transfers = new Semaphore(parallelism);
+        List<TransferTask> tasks = new ArrayList<>();
+        try (FtpSessionPool sessions = new FtpSessionPool(client, parallelism)) {
+            boolean completed = false;
+            try {
+                for (FtpRemoteFile file : files) {
+                    transfers.acquire();
+                    TransferTask task = new TransferTask(() -> transfer(sessions, file, consumer), transfers);
+                    tasks.add(task);
+                    executor.execute(task);
+                }
+                transfers.acquire(parallelism);
+                completed = true;
+            } finally {
+                if (!completed) {
+                    // transfers left running would keep calling the consumer after the caller has closed it
+                    tasks.forEach(TransferTask::abort);
+                    transfers.acquireUninterruptibly(parallelism);
+                }
+            }
+        }
+    }
+
+    /**
+     * Transfers one file using a session of the pool
+     */
+    private void transfer(FtpSessionPool sessions, FtpRemoteFile file, FtpFileConsumer consumer) {
+        FtpClient session;
+        try {
+            session = sessions.borrow();
+        } catch (IOException e) {
+            LOG.error("Could not open FTP session to transfer {}", file.getPath(), e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        boolean broken = true;
+        try {
+            session.streamFile(file.getPath(), file.getFile(), consumer);
+            broken = false;
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Could not transfer {} from {}", file.getPath(), session.getServer(), e);
+        } finally {
+            sessions.release(session, broken);
+        }
+    }
+
+    /**
+     * @param server FTP server address
+     * @return number of files transferred from the server at the same time
+     */
+    private int getParallelism(String server) {
+        return Math.max(1, serverParallelism.getOrDefault(server, defaultParallelism));
+    }
+
+    /**
+     * Transfer of one file. It returns its permit when it has finished, or when it is aborted before it has started
+     */
+    private static class TransferTask extends FutureTask<Void> {
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Semaphore transfers;
+
+        TransferTask(Runnable transfer, Semaphore transfers) {
+            super(transfer, null);
+            this.transfers = transfers;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                super.run();
+            } finally {
+                transfers.release();
+            }
+        }
+
+        /**
+         * Cancels the transfer. A running transfer is interrupted and returns its permit when it stops
+         */
+        void abort() {
+            if (started.compareAndSet(false, true)) {
+                cancel(false);
+                transfers.release();
+            } else {
+                cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Stops all transfers
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
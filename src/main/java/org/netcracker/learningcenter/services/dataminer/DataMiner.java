@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.net.ftp.FTPFileFilter;
 import org.jasypt.util.text.AES256TextEncryptor;
+import org.netcracker.learningcenter.enums.JobStatus;
 import org.netcracker.learningcenter.enums.Source;
+import org.netcracker.learningcenter.exceptions.CollectionException;
 import org.netcracker.learningcenter.exceptions.ResourceNotFoundException;
 import org.netcracker.learningcenter.filter.DateFilter;
 import org.netcracker.learningcenter.filter.ExtensionFilter;
@@ -14,12 +16,15 @@ import org.netcracker.learningcenter.h2.credentials.entities.JiraCredentials;
 import org.netcracker.learningcenter.h2.credentials.operations.ConfluenceOperations;
 import org.netcracker.learningcenter.h2.credentials.operations.FtpServerOperations;
 import org.netcracker.learningcenter.h2.credentials.operations.JiraOperations;
+import org.netcracker.learningcenter.kafka.dataminer.DocumentEventPublisher;
 import org.netcracker.learningcenter.utils.FtpClient;
 import org.netcracker.learningcenter.utils.Validations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This class represents Data miner which searches and collects relevant data by request
@@ -94,6 +99,11 @@ public class DataMiner {
      */
     private static final String CONFLUENCE_PAGES_DATE = "/confPages/confPagesDate";
 
+    /**
+     * Ids of already indexed documents that also belong to the request, in the result of the collection
+     */
+    private static final String LINKED_DOCUMENT_IDS = "linkedDocumentIds";
+
     /**
      * DataMiner service instance to collect and store data
      */
@@ -125,14 +135,20 @@ public class DataMiner {
     private final AES256TextEncryptor aes256TextEncryptor;
 
     /**
-     * List of keywords
+     * SourceCollectorExecutor instance to collect data from all sources in parallel
+     */
+    private final SourceCollectorExecutor sourceCollectorExecutor;
+
+    /**
+     * DataMinerJobRegistry instance to run collection jobs in the background
      */
-    List<String> keywordsList;
+    private final DataMinerJobRegistry jobRegistry;
 
     /**
-     * List of selected sources
+     * DocumentEventPublisher instance to mark the end of the collection in the document events topic, whether it
+     * has completed, failed or was cancelled
      */
-    List<String> selectedSources;
+    private final DocumentEventPublisher documentEventPublisher;
 
     /**
      * Creates a DataMiner instance
@@ -143,29 +159,66 @@ public class DataMiner {
      * @param ftpServerOperations current FtpServerOperations instance
      * @param confluenceOperations current ConfluenceOperations instance
      * @param aes256TextEncryptor current AES256TextEncryptor instance
+     * @param sourceCollectorExecutor current SourceCollectorExecutor instance
+     * @param jobRegistry current DataMinerJobRegistry instance
+     * @param documentEventPublisher current DocumentEventPublisher instance
      */
     @Autowired
     public DataMiner(DataMinerService dataMinerService, ObjectMapper objectMapper, JiraOperations jiraOperations,
                      FtpServerOperations ftpServerOperations, ConfluenceOperations confluenceOperations,
-                     AES256TextEncryptor aes256TextEncryptor) {
+                     AES256TextEncryptor aes256TextEncryptor, SourceCollectorExecutor sourceCollectorExecutor,
+                     DataMinerJobRegistry jobRegistry, DocumentEventPublisher documentEventPublisher) {
         this.dataMinerService = dataMinerService;
         this.objectMapper = objectMapper;
         this.jiraOperations = jiraOperations;
         this.ftpServerOperations = ftpServerOperations;
         this.confluenceOperations = confluenceOperations;
         this.aes256TextEncryptor = aes256TextEncryptor;
+        this.sourceCollectorExecutor = sourceCollectorExecutor;
+        this.jobRegistry = jobRegistry;
+        this.documentEventPublisher = documentEventPublisher;
     }
 
     /**
-     * Collects Jira-issues from all provided sources
+     * Submits a collection task to the thread pool of the source. The task is counted in the progress of the request
+     *
+     * @param source source the task collects data from
+     * @param requestId id of the current request
+     * @param task collection task
+     * @return Future of the submitted task
+     * @throws RejectedExecutionException if the queue of the source is full
+     */
+    private Future<?> submit(Source source, String requestId, Runnable task) {
+        SourceProgress progress = jobRegistry.getProgress(requestId, source);
+        progress.taskStarted();
+        try {
+            return sourceCollectorExecutor.submit(source, () -> {
+                try {
+                    task.run();
+                } finally {
+                    progress.taskCompleted();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            progress.taskCompleted();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts collection of Jira-issues from all provided sources, one task per Jira server
      *
      * @param jsonNode JSON with required fields
      * @param requestId id of the current request
+     * @param keywordsList keywords used to select relevant Jira-issues
      * @param jiraCredentials list of Jira credentials to be able to collect data by their url
+     * @param linkedDocumentIds list the ids of already indexed documents with the same content are added to
+     * @param tasks list the started collection tasks are added to
      * @throws ResourceNotFoundException if JsonNode mandatory field is missing
      */
-    private void collectJiraIssues(JsonNode jsonNode, String requestId, List<JiraCredentials> jiraCredentials)
-            throws ResourceNotFoundException {
+    private void collectJiraIssues(JsonNode jsonNode, String requestId, List<String> keywordsList,
+                                   List<JiraCredentials> jiraCredentials, List<String> linkedDocumentIds,
+                                   List<Future<?>> tasks) throws ResourceNotFoundException {
         JsonNode jiraIssuesDate = jsonNode.at(JIRA_ISSUES_DATE);
         JsonNode jiraIssuesStatus = jsonNode.at(JIRA_ISSUES_STATUS);
         JsonNode jql = jsonNode.at(JQL);
@@ -178,25 +231,31 @@ public class DataMiner {
             String jiraUrl = credentials.getUrl();
 
             if (!jql.isEmpty()) {
-                dataMinerService.addJiraIssuesUsingJql(jiraLogin, jiraPassword, jiraUrl,
-                        jql.asText(), requestId);
+                tasks.add(submit(Source.JIRA, requestId, () -> linkedDocumentIds.addAll(
+                        dataMinerService.addJiraIssuesUsingJql(jiraLogin, jiraPassword, jiraUrl,
+                                jql.asText(), requestId))));
             } else if (!jsonNode.path(KEYWORDS).isEmpty()) {
-                dataMinerService.addJiraIssuesUsingKeywords(jiraLogin, jiraPassword, jiraUrl,
-                        keywordsList, jiraIssuesDate.asText(), jiraIssuesStatus.asText(), requestId);
+                tasks.add(submit(Source.JIRA, requestId, () -> linkedDocumentIds.addAll(
+                        dataMinerService.addJiraIssuesUsingKeywords(jiraLogin, jiraPassword, jiraUrl,
+                                keywordsList, jiraIssuesDate.asText(), jiraIssuesStatus.asText(), requestId))));
             }
         }
     }
 
     /**
-     * Collects FTP-server file objects from all provided sources
+     * Starts collection of FTP-server file objects from all provided sources, one task per FTP-server
      *
      * @param jsonNode JSON with required fields
      * @param requestId id of the current request
      * @param ftpServerCredentials list of FTP-server credentials to be able to collect data by their ip addresses
+     * @param linkedDocumentIds list the ids of already indexed documents of unchanged and duplicate files are
+     * added to
+     * @param tasks list the started collection tasks are added to
      * @throws ResourceNotFoundException if JsonNode mandatory field is missing
      */
     private void collectFtpFileObjects(JsonNode jsonNode, String requestId,
-                                       List<FtpServerCredentials> ftpServerCredentials)
+                                       List<FtpServerCredentials> ftpServerCredentials,
+                                       List<String> linkedDocumentIds, List<Future<?>> tasks)
             throws ResourceNotFoundException {
         JsonNode jPath = jsonNode.at(PATH_TO_DIR);
         JsonNode jDateFilter = jsonNode.at(DATE_FILTER);
@@ -224,20 +283,25 @@ public class DataMiner {
                 }
                 filters.add(new ExtensionFilter(extensions));
             }
-            dataMinerService.addFileData(client, jPath.asText(), filters, requestId);
+            tasks.add(submit(Source.FTP, requestId, () -> linkedDocumentIds.addAll(
+                    dataMinerService.addFileData(client, jPath.asText(), filters, requestId))));
         }
     }
 
     /**
-     * Collects Confluence-pages from all provided sources
+     * Starts collection of Confluence-pages from all provided sources, one task per Confluence server
      *
      * @param jsonNode JSON with required fields
      * @param requestId id of the current request
+     * @param keywordsList keywords used to select relevant Confluence-pages
      * @param confluenceCredentials list of Confluence credentials to be able to collect data by their url
+     * @param linkedDocumentIds list the ids of already indexed documents with the same content are added to
+     * @param tasks list the started collection tasks are added to
      * @throws ResourceNotFoundException if JsonNode mandatory field is missing
      */
-    private void collectConfluencePages(JsonNode jsonNode, String requestId,
-                                        List<ConfluenceCredentials> confluenceCredentials)
+    private void collectConfluencePages(JsonNode jsonNode, String requestId, List<String> keywordsList,
+                                        List<ConfluenceCredentials> confluenceCredentials,
+                                        List<String> linkedDocumentIds, List<Future<?>> tasks)
             throws ResourceNotFoundException {
         JsonNode confluencePagesDate = jsonNode.at(CONFLUENCE_PAGES_DATE);
         JsonNode cql = jsonNode.at(CQL);
@@ -249,37 +313,90 @@ public class DataMiner {
             String confluenceUrl = credentials.getUrl();
 
             if (!cql.isEmpty()) {
-                dataMinerService.addConfluencePagesUsingCql(confluenceToken, confluenceUrl,
-                        cql.asText(), requestId);
+                tasks.add(submit(Source.CONFLUENCE, requestId, () -> linkedDocumentIds.addAll(
+                        dataMinerService.addConfluencePagesUsingCql(confluenceToken, confluenceUrl,
+                                cql.asText(), requestId))));
             } else if (!jsonNode.path(KEYWORDS).isEmpty()) {
-                dataMinerService.addConfluencePagesUsingKeywords(confluenceToken, confluenceUrl,
-                        keywordsList, confluencePagesDate.asText(), requestId);
+                tasks.add(submit(Source.CONFLUENCE, requestId, () -> linkedDocumentIds.addAll(
+                        dataMinerService.addConfluencePagesUsingKeywords(confluenceToken, confluenceUrl,
+                                keywordsList, confluencePagesDate.asText(), requestId))));
             }
         }
     }
 
+    /**
+     * Starts collection of all found data from different sources(e.g. Jira, FTP server) in the background. The
+     * result of the returned job is the same JsonNode searchAndCollect returns
+     *
+     * @param jsonNode JSON with required fields
+     * @return started collection job
+     * @throws ResourceNotFoundException if JsonNode mandatory field is missing
+     * @throws java.util.concurrent.RejectedExecutionException if too many jobs are waiting to be executed
+     */
+    public DataMinerJob startCollection(JsonNode jsonNode) throws ResourceNotFoundException {
+        Validations.checkJsonNode(jsonNode.path(KEYWORDS), jsonNode.path(USER_ID), jsonNode.path(SOURCES));
+        String requestId = UUID.randomUUID().toString();
+        DataMinerJob job = jobRegistry.submit(requestId, () -> searchAndCollect(jsonNode, requestId));
+        job.getCompletion().whenComplete((result, error) -> documentEventPublisher.publishFinished(requestId,
+                job.getStatus(), result != null ? getLinkedDocumentIds(result) : null, job.getError()));
+        return job;
+    }
+
     /**
      * Collects all found data from different sources(e.g. Jira, FTP server) in the ES database
      *
      * @param jsonNode JSON with required fields
      * @return JsonNode with id of the request and keywords (used in the analysis-service)
      * @throws ResourceNotFoundException if JsonNode mandatory field is missing
+     * @throws CollectionException if data could not be collected from some of the sources
      */
     public JsonNode searchAndCollect(JsonNode jsonNode) throws ResourceNotFoundException {
         String requestId = UUID.randomUUID().toString();
+        JsonNode result;
+        try {
+            result = searchAndCollect(jsonNode, requestId);
+        } catch (ResourceNotFoundException | RuntimeException e) {
+            documentEventPublisher.publishFinished(requestId, JobStatus.FAILED, null, e.getMessage());
+            throw e;
+        }
+        documentEventPublisher.publishFinished(requestId, JobStatus.COMPLETED, getLinkedDocumentIds(result), null);
+        return result;
+    }
+
+    /**
+     * @param result result of the collection
+     * @return ids of already indexed documents that also belong to the request
+     */
+    private List<String> getLinkedDocumentIds(JsonNode result) {
+        List<String> linkedDocumentIds = new ArrayList<>();
+        for (JsonNode linkedDocumentId : result.path(LINKED_DOCUMENT_IDS)) {
+            linkedDocumentIds.add(linkedDocumentId.asText());
+        }
+        return linkedDocumentIds;
+    }
 
+    /**
+     * Collects all found data from different sources(e.g. Jira, FTP server) in the ES database
+     *
+     * @param jsonNode JSON with required fields
+     * @param requestId id of the current request
+     * @return JsonNode with id of the request and keywords (used in the analysis-service)
+     * @throws ResourceNotFoundException if JsonNode mandatory field is missing
+     * @throws CollectionException if data could not be collected from some of the sources
+     */
+    private JsonNode searchAndCollect(JsonNode jsonNode, String requestId) throws ResourceNotFoundException {
         JsonNode keywords = jsonNode.path(KEYWORDS);
         JsonNode userId = jsonNode.path(USER_ID);
         JsonNode sources = jsonNode.path(SOURCES);
 
         Validations.checkJsonNode(keywords, userId, sources);
 
-        keywordsList = new ArrayList<>();
+        List<String> keywordsList = new ArrayList<>();
         for (JsonNode keyword : keywords) {
             keywordsList.add(keyword.asText());
         }
 
-        selectedSources = new ArrayList<>();
+        List<String> selectedSources = new ArrayList<>();
         for (JsonNode source : sources) {
             selectedSources.add(source.get(CREDENTIAL_ID).asText());
         }
@@ -300,15 +417,36 @@ public class DataMiner {
             }
         }
 
-        if (!jiraCredentials.isEmpty()) {
-            collectJiraIssues(jsonNode, requestId, jiraCredentials);
+        Map<Source, List<Future<?>>> tasks = new EnumMap<>(Source.class);
+        List<String> linkedDocumentIds = Collections.synchronizedList(new ArrayList<>());
+        try {
+            if (!jiraCredentials.isEmpty()) {
+                collectJiraIssues(jsonNode, requestId, keywordsList, jiraCredentials, linkedDocumentIds,
+                        tasks.computeIfAbsent(Source.JIRA, source -> new ArrayList<>()));
+            }
+            if (!ftpServerCredentials.isEmpty()) {
+                collectFtpFileObjects(jsonNode, requestId, ftpServerCredentials, linkedDocumentIds,
+                        tasks.computeIfAbsent(Source.FTP, source -> new ArrayList<>()));
+            }
+            if (!confluenceCredentials.isEmpty()) {
+                collectConfluencePages(jsonNode, requestId, keywordsList, confluenceCredentials, linkedDocumentIds,
+                        tasks.computeIfAbsent(Source.CONFLUENCE, source -> new ArrayList<>()));
+            }
+        } catch (ResourceNotFoundException | RuntimeException e) {
+            tasks.values().forEach(sourceTasks -> sourceTasks.forEach(task -> task.cancel(true)));
+            throw e;
         }
-        if (!ftpServerCredentials.isEmpty()) {
-            collectFtpFileObjects(jsonNode, requestId, ftpServerCredentials);
+        List<Throwable> failures = sourceCollectorExecutor.awaitAll(tasks);
+        if (!failures.isEmpty()) {
+            CollectionException exception = new CollectionException(failures.size()
+                    + " collection tasks of request " + requestId + " have failed", failures.get(0));
+            failures.subList(1, failures.size()).forEach(exception::addSuppressed);
+            throw exception;
         }
-        if (!confluenceCredentials.isEmpty()) {
-            collectConfluencePages(jsonNode, requestId, confluenceCredentials);
+        DataMinerDto dataMinerDto = new DataMinerDto(userId.asText(), requestId, keywordsList, selectedSources);
+        synchronized (linkedDocumentIds) {
+            dataMinerDto.setLinkedDocumentIds(new ArrayList<>(linkedDocumentIds));
         }
-        return objectMapper.valueToTree(new DataMinerDto(userId.asText(), requestId, keywordsList, selectedSources));
+        return objectMapper.valueToTree(dataMinerDto);
     }
 }
\ No newline at end of file
@@ -7,26 +7,6 @@ package org.netcracker.learningcenter.services.dataminer;
  */
 public final class DataMinerConstants {
 
-    /**
-     * Elasticsearch hostname property name
-     */
-    public static final String HOSTNAME_PROPERTY_NAME = "hostname";
-
-    /**
-     * Elasticsearch scheme property name
-     */
-    public static final String SCHEME_PROPERTY_NAME = "scheme";
-
-    /**
-     * Elasticsearch first port property name.
-     */
-    public static final String PORT1_PROPERTY_NAME = "port1";
-
-    /**
-     * Elasticsearch second port property name.
-     */
-    public static final String PORT2_PROPERTY_NAME = "port2";
-
     /**
      * Elasticsearch document index for Jira-issues
      */
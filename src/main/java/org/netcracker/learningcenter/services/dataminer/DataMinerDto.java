@@ -1,5 +1,6 @@
 package org.netcracker.learningcenter.services.dataminer;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,6 +26,13 @@ public class DataMinerDto {
     private List<String> keywordsList;
 
     private List<String> selectedSources;
+
+    /**
+     * Ids of already indexed documents that also belong to this request (e.g. unchanged FTP files or documents
+     * with the same content)
+     */
+    private List<String> linkedDocumentIds = new ArrayList<>();
+
     /**
      * Creates a new DataMinerDto instance with the given user id, request id and keywords
      *
@@ -94,4 +102,18 @@ public class DataMinerDto {
     public void setSelectedSources(List<String> selectedSources) {
         this.selectedSources = selectedSources;
     }
+
+    /**
+     * @return ids of the linked documents
+     */
+    public List<String> getLinkedDocumentIds() {
+        return linkedDocumentIds;
+    }
+
+    /**
+     * @param linkedDocumentIds ids of the linked documents to set
+     */
+    public void setLinkedDocumentIds(List<String> linkedDocumentIds) {
+        this.linkedDocumentIds = linkedDocumentIds;
+    }
 }
@@ -0,0 +1,207 @@
+package org.netcracker.learningcenter.services.dataminer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.netcracker.learningcenter.enums.JobStatus;
+import org.netcracker.learningcenter.enums.Source;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Data collection job of one request. The job is executed on the job thread pool of DataMinerJobRegistry
+ */
+public class DataMinerJob {
+
+    /**
+     * Id of the request
+     */
+    private final String requestId;
+
+    /**
+     * Time the job was submitted
+     */
+    private final Instant submitted = Instant.now();
+
+    /**
+     * Progress of the collection from every source
+     */
+    private final Map<Source, SourceProgress> progress;
+
+    /**
+     * Result of the job (JSON with id of the request and keywords)
+     */
+    private final CompletableFuture<JsonNode> completion = new CompletableFuture<>();
+
+    private JobStatus status = JobStatus.QUEUED;
+    private Instant started;
+    private Instant finished;
+    private String error;
+    private boolean cancelRequested;
+    private Future<?> future;
+
+    /**
+     * Creates a DataMinerJob instance
+     *
+     * @param requestId id of the request
+     */
+    DataMinerJob(String requestId) {
+        this.requestId = requestId;
+        Map<Source, SourceProgress> sourceProgress = new EnumMap<>(Source.class);
+        for (Source source : Source.values()) {
+            sourceProgress.put(source, new SourceProgress());
+        }
+        this.progress = Collections.unmodifiableMap(sourceProgress);
+    }
+
+    /**
+     * Executes the job on the current thread
+     *
+     * @param task collection task returning the result of the job
+     */
+    void run(Callable<JsonNode> task) {
+        synchronized (this) {
+            if (cancelRequested) {
+                return;
+            }
+            status = JobStatus.RUNNING;
+            started = Instant.now();
+        }
+        try {
+            JsonNode result = task.call();
+            if (Thread.currentThread().isInterrupted() || isCancelRequested()) {
+                finish(JobStatus.CANCELLED, null);
+                completion.cancel(false);
+            } else {
+                finish(JobStatus.COMPLETED, null);
+                completion.complete(result);
+            }
+        } catch (Exception e) {
+            if (isCancelRequested()) {
+                finish(JobStatus.CANCELLED, null);
+                completion.cancel(false);
+            } else {
+                finish(JobStatus.FAILED, e.getMessage());
+                completion.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Cancels the job. Collection tasks of the running job are interrupted
+     *
+     * @return false if the job has already finished
+     */
+    public boolean cancel() {
+        Future<?> jobFuture;
+        synchronized (this) {
+            if (isFinished()) {
+                return false;
+            }
+            cancelRequested = true;
+            jobFuture = future;
+            if (status == JobStatus.QUEUED) {
+                status = JobStatus.CANCELLED;
+                finished = Instant.now();
+                completion.cancel(false);
+            }
+        }
+        if (jobFuture != null) {
+            jobFuture.cancel(true);
+        }
+        return true;
+    }
+
+    /**
+     * @param future Future of the job on the job thread pool
+     */
+    void setFuture(Future<?> future) {
+        synchronized (this) {
+            this.future = future;
+            if (!cancelRequested) {
+                return;
+            }
+        }
+        future.cancel(true);
+    }
+
+    /**
+     * Sets the final status of the job
+     *
+     * @param finalStatus final status
+     * @param message error message
+     */
+    private synchronized void finish(JobStatus finalStatus, String message) {
+        status = finalStatus;
+        error = message;
+        finished = Instant.now();
+    }
+
+    private synchronized boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * @return true if the job has completed, failed or was cancelled
+     */
+    @JsonIgnore
+    public synchronized boolean isFinished() {
+        return status != JobStatus.QUEUED && status != JobStatus.RUNNING;
+    }
+
+    /**
+     * @param source source of the data
+     * @return progress of the collection from the source
+     */
+    SourceProgress getProgress(Source source) {
+        return progress.get(source);
+    }
+
+    /**
+     * @return result of the job, it is cancelled if the job was cancelled
+     */
+    @JsonIgnore
+    public CompletableFuture<JsonNode> getCompletion() {
+        return completion;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public synchronized JobStatus getStatus() {
+        return status;
+    }
+
+    public Instant getSubmitted() {
+        return submitted;
+    }
+
+    public synchronized Instant getStarted() {
+        return started;
+    }
+
+    public synchronized Instant getFinished() {
+        return finished;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    public Map<Source, SourceProgress> getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return result of the completed job, or null if the job has not completed
+     */
+    public JsonNode getResult() {
+        return completion.isDone() && !completion.isCompletedExceptionally() ? completion.join() : null;
+    }
+}
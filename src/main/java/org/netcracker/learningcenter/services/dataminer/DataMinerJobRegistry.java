@@ -0,0 +1,131 @@
+package org.netcracker.learningcenter.services.dataminer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.enums.Source;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs data collection jobs on a dedicated thread pool and keeps them, so the status of a job can be requested
+ * after it was submitted. Finished jobs are forgotten when the retention time has expired
+ */
+@Component
+public class DataMinerJobRegistry {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Known jobs by request id
+     */
+    private final Map<String, DataMinerJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Thread pool executing the jobs
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Time (in seconds) a finished job is kept
+     */
+    private final long retention;
+
+    /**
+     * Creates a DataMinerJobRegistry instance
+     *
+     * @param threads max number of jobs executed at the same time
+     * @param queueCapacity max number of jobs waiting for a free thread
+     * @param retention time (in seconds) a finished job is kept
+     */
+    @Autowired
+    public DataMinerJobRegistry(@Value("${data-miner.jobs.threads}") int threads,
+                                @Value("${data-miner.jobs.queue-capacity}") int queueCapacity,
+                                @Value("${data-miner.jobs.retention}") long retention) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("data-miner-job-"));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.retention = retention;
+    }
+
+    /**
+     * Submits a data collection job
+     *
+     * @param requestId id of the request
+     * @param task collection task returning the result of the job
+     * @return submitted job
+     * @throws RejectedExecutionException if too many jobs are waiting for a free thread
+     */
+    public DataMinerJob submit(String requestId, Callable<JsonNode> task) {
+        removeExpiredJobs();
+        DataMinerJob job = new DataMinerJob(requestId);
+        jobs.put(requestId, job);
+        try {
+            job.setFuture(executor.submit(() -> job.run(task)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(requestId);
+            LOG.warn("Job of request {} was rejected, {} jobs are waiting", requestId, executor.getQueue().size());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * @param requestId id of the request
+     * @return job of the request, or null if there is no such job
+     */
+    public DataMinerJob getJob(String requestId) {
+        return jobs.get(requestId);
+    }
+
+    /**
+     * @return all known jobs
+     */
+    public List<DataMinerJob> getJobs() {
+        removeExpiredJobs();
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Gets the progress of the collection from the source. Progress of a request that has no job (e.g. a request
+     * processed synchronously) is not kept anywhere
+     *
+     * @param requestId id of the request
+     * @param source source of the data
+     * @return progress of the collection
+     */
+    public SourceProgress getProgress(String requestId, Source source) {
+        DataMinerJob job = jobs.get(requestId);
+        return job == null ? new SourceProgress() : job.getProgress(source);
+    }
+
+    /**
+     * Forgets finished jobs whose retention time has expired
+     */
+    private void removeExpiredJobs() {
+        Instant expiration = Instant.now().minusSeconds(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinished().isBefore(expiration));
+    }
+
+    /**
+     * Cancels all jobs and shuts down the thread pool
+     */
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(DataMinerJob::cancel);
+        executor.shutdownNow();
+    }
+}
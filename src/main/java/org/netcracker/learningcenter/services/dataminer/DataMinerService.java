@@ -1,37 +1,54 @@
 package org.netcracker.learningcenter.services.dataminer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPFileFilter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.netcracker.educationcenter.elasticsearch.connection.Connection;
 import org.netcracker.educationcenter.elasticsearch.database.model.ElasticsearchDocument;
-import org.netcracker.educationcenter.elasticsearch.database.operations.DocumentModelOperations;
-import org.netcracker.educationcenter.elasticsearch.database.operations.ElasticsearchOperations;
-import org.netcracker.educationcenter.elasticsearch.database.operations.ElasticsearchOperationsException;
 import org.netcracker.educationcenter.elasticsearch.enums.ModelType;
 import org.netcracker.learningcenter.confluence.ConfluenceClient;
+import org.netcracker.learningcenter.confluence.ConfluenceClientFactory;
 import org.netcracker.learningcenter.confluence.ConfluencePageModel;
+import org.netcracker.learningcenter.elasticsearch.BulkItem;
+import org.netcracker.learningcenter.elasticsearch.BulkItemListener;
+import org.netcracker.learningcenter.elasticsearch.ElasticsearchBulkIndexer;
+import org.netcracker.learningcenter.elasticsearch.ElasticsearchBulkIndexerFactory;
+import org.netcracker.learningcenter.enums.Source;
+import org.netcracker.learningcenter.exceptions.CollectionException;
+import org.netcracker.learningcenter.exceptions.ReaderNotFoundException;
+import org.netcracker.learningcenter.h2.manifest.entities.FtpFileManifest;
+import org.netcracker.learningcenter.h2.manifest.operations.FtpManifestOperations;
+import org.netcracker.learningcenter.jira.JiraClientRegistry;
 import org.netcracker.learningcenter.jira.JiraClientWorker;
 import org.netcracker.learningcenter.jira.SimpleIssue;
+import org.netcracker.learningcenter.kafka.dataminer.DocumentEventPublisher;
+import org.netcracker.learningcenter.reader.Reader;
 import org.netcracker.learningcenter.reader.ReaderFactory;
+import org.netcracker.learningcenter.reader.TextExtractionExecutor;
+import org.netcracker.learningcenter.services.FtpDownloadEngine;
 import org.netcracker.learningcenter.utils.FTPFileData;
-import org.netcracker.learningcenter.utils.FileUtils;
 import org.netcracker.learningcenter.utils.FtpClient;
+import org.netcracker.learningcenter.utils.HashingInputStream;
+import org.netcracker.learningcenter.utils.KeywordQueryBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.time.Instant;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -40,97 +57,287 @@ import java.util.Properties;
  * @author Mikhail Savin
  */
 @Service
-@PropertySource("/application.properties")
 public class DataMinerService {
     private static final Logger LOG = LogManager.getLogger();
 
     /**
-     * ObjectMapper instance.
+     * Reader factory instance to get reader for a specific file
      */
     @Autowired
-    private ObjectMapper objectMapper;
+    private ReaderFactory readerFactory;
 
     /**
-     * Reader factory instance to get reader for a specific file
+     * Builder of keyword conditions for Jira and Confluence searches
      */
     @Autowired
-    private ReaderFactory readerFactory;
+    private KeywordQueryBuilder keywordQueryBuilder;
+
+    /**
+     * Whether Jira queries are executed separately for every project
+     */
+    @Value("${jira.search.partition-by-project}")
+    private boolean partitionJiraByProject;
+
+    /**
+     * Max number of Jira-issues whose comments are fetched at the same time
+     */
+    @Value("${jira.search.comment-fetch-parallelism}")
+    private int jiraCommentFetchParallelism;
+
+    /**
+     * Factory of bulk indexers writing documents into Elasticsearch
+     */
+    private final ElasticsearchBulkIndexerFactory bulkIndexerFactory;
+
+    /**
+     * Factory of Confluence clients sharing pooled connections
+     */
+    private final ConfluenceClientFactory confluenceClientFactory;
+
+    /**
+     * Registry of reusable Jira clients
+     */
+    private final JiraClientRegistry jiraClientRegistry;
+
+    /**
+     * Engine transferring files from FTP servers over several sessions
+     */
+    private final FtpDownloadEngine ftpDownloadEngine;
 
     /**
-     * Elasticsearch connection properties
+     * Manifest of the indexed FTP files
      */
-    private final Properties properties;
+    private final FtpManifestOperations ftpManifestOperations;
 
     /**
-     * Loads properties to establish a connection with Elasticsearch
+     * Thread pool extracting text from files
+     */
+    private final TextExtractionExecutor textExtractionExecutor;
+
+    /**
+     * Finder of documents whose content has already been indexed
+     */
+    private final DocumentDeduplicator documentDeduplicator;
+
+    /**
+     * Registry of collection jobs, it keeps the progress of the requests
+     */
+    private final DataMinerJobRegistry jobRegistry;
+
+    /**
+     * Publisher of events about indexed documents
+     */
+    private final DocumentEventPublisher documentEventPublisher;
+
+    /**
+     * Creates a DataMinerService instance
      *
-     * @param hostname Elasticsearch hostname
-     * @param scheme the name of the ES connection scheme
-     * @param port1 first Elasticsearch port number
-     * @param port2 second Elasticsearch port number
+     * @param bulkIndexerFactory current ElasticsearchBulkIndexerFactory instance
+     * @param confluenceClientFactory current ConfluenceClientFactory instance
+     * @param jiraClientRegistry current JiraClientRegistry instance
+     * @param ftpDownloadEngine current FtpDownloadEngine instance
+     * @param ftpManifestOperations current FtpManifestOperations instance
+     * @param textExtractionExecutor current TextExtractionExecutor instance
+     * @param documentDeduplicator current DocumentDeduplicator instance
+     * @param jobRegistry current DataMinerJobRegistry instance
+     * @param documentEventPublisher current DocumentEventPublisher instance
      */
     @Autowired
-    public DataMinerService(@Value("${eshostname}") String hostname, @Value("${scheme}") String scheme,
-                            @Value("${port1}") String port1, @Value("${port2}") String port2) {
-        properties = new Properties();
-
-        properties.setProperty(DataMinerConstants.HOSTNAME_PROPERTY_NAME, hostname);
-        properties.setProperty(DataMinerConstants.SCHEME_PROPERTY_NAME, scheme);
-        properties.setProperty(DataMinerConstants.PORT1_PROPERTY_NAME, port1);
-        properties.setProperty(DataMinerConstants.PORT2_PROPERTY_NAME, port2);
+    public DataMinerService(ElasticsearchBulkIndexerFactory bulkIndexerFactory,
+                            ConfluenceClientFactory confluenceClientFactory,
+                            JiraClientRegistry jiraClientRegistry,
+                            FtpDownloadEngine ftpDownloadEngine,
+                            FtpManifestOperations ftpManifestOperations,
+                            TextExtractionExecutor textExtractionExecutor,
+                            DocumentDeduplicator documentDeduplicator,
+                            DataMinerJobRegistry jobRegistry,
+                            DocumentEventPublisher documentEventPublisher) {
+        this.bulkIndexerFactory = bulkIndexerFactory;
+        this.confluenceClientFactory = confluenceClientFactory;
+        this.jiraClientRegistry = jiraClientRegistry;
+        this.ftpDownloadEngine = ftpDownloadEngine;
+        this.ftpManifestOperations = ftpManifestOperations;
+        this.textExtractionExecutor = textExtractionExecutor;
+        this.documentDeduplicator = documentDeduplicator;
+        this.jobRegistry = jobRegistry;
+        this.documentEventPublisher = documentEventPublisher;
     }
 
     /**
-     * Reads files from FTP server using FtpClient instance, then adds file data to Elasticsearch database
+     * Reads files from FTP server using FtpClient instance, then adds file data to Elasticsearch database. Files are
+     * transferred over several sessions, and every file is indexed as soon as its text has been extracted. Files
+     * that have not changed since they were indexed are not transferred again, and files with the same text as an
+     * already indexed document are not indexed again, their existing documents are linked to the request instead.
+     * Files of unsupported types are not transferred, or their transfer is aborted once their type is known
      *
      * @param client FtpClient instance to make a connection, and download files from server
      * @param path path to the directory on the FTP server to download files from there
      * @param filters a list of filters used to validate the file before downloading
      * @param requestNumber current request number (id)
+     * @return ids of the existing documents of unchanged and duplicate files
+     * @throws CollectionException if files could not be collected, the collection was interrupted, or documents
+     * could not be indexed
      */
-    public void addFileData(FtpClient client, String path, List<FTPFileFilter> filters, String requestNumber) {
-        List<FTPFileData> fileInfo = new ArrayList<>();
-
-        try (Connection connection = new Connection(properties)) {
-            connection.makeConnection();
-
-            try (FtpClient c = client) {
-                c.open();
-                File tmpDir = Files.createTempDirectory("tmpFtpStorage").toFile();
-                String tmpFtpStorage = tmpDir.getAbsolutePath();
-                c.downloadFiles(path, filters, tmpFtpStorage);
-                List<File> list = FileUtils.listFilesForFolder(tmpFtpStorage);
-                for (File f : list) {
-                    FTPFileData file = new FTPFileData();
-                    file.setFilename(f.getName());
-                    file.setServer(c.getServer());
-                    file.setText(readerFactory.getReader(f.getName()).read(f));
-                    file.setModificationDate(
-                            Instant.ofEpochMilli(f.lastModified())
-                                    .atZone(ZoneId.systemDefault())
-                                    .toLocalDate());
-                    fileInfo.add(file);
-                    f.delete();
+    public List<String> addFileData(FtpClient client, String path, List<FTPFileFilter> filters,
+                                    String requestNumber) {
+        String server = client.getServer();
+        List<String> linkedDocumentIds = Collections.synchronizedList(new ArrayList<>());
+        Map<String, FtpFileManifest> manifest = ftpManifestOperations.getManifest(server);
+        Map<String, FtpFileManifest> pendingRecords = new ConcurrentHashMap<>();
+        AtomicInteger skippedFiles = new AtomicInteger();
+        DocumentDeduplicator.Session deduplicator = documentDeduplicator.newSession();
+        SourceProgress progress = jobRegistry.getProgress(requestNumber, Source.FTP);
+        DocumentEventPublisher.Session events = documentEventPublisher.newSession(requestNumber, Source.FTP);
+
+        Queue<FtpFileManifest> confirmedRecords = new ConcurrentLinkedQueue<>();
+        Runnable saveConfirmedRecords = () -> {
+            List<FtpFileManifest> records = new ArrayList<>();
+            for (FtpFileManifest record; (record = confirmedRecords.poll()) != null; ) {
+                records.add(record);
+            }
+            ftpManifestOperations.saveAll(records);
+        };
+
+        BulkItemListener manifestListener = new BulkItemListener() {
+            @Override
+            public void onIndexed(BulkItem item) {
+                FtpFileManifest record = pendingRecords.remove(item.getId());
+                if (record != null) {
+                    confirmedRecords.add(record);
                 }
-                tmpDir.delete();
-            } catch (Exception e) {
-                LOG.error("Something went wrong while interacting with file", e);
             }
 
-            ElasticsearchOperations elasticsearchOperations = new DocumentModelOperations(connection);
+            @Override
+            public void onFailure(BulkItem item, String reason) {
+                pendingRecords.remove(item.getId());
+            }
 
-            for (FTPFileData ftpFileData : fileInfo) {
-                ElasticsearchDocument ftpFileObject = new ElasticsearchDocument(requestNumber,
-                        getFtpUrl(ftpFileData.getServer(), path), ModelType.FILE, ftpFileData.getFilename(),
-                        ftpFileData.getText(), Collections.emptyList(), ftpFileData.getModificationDate());
-                try {
-                    elasticsearchOperations.insert(ftpFileObject, ftpFileObject.getId(), DataMinerConstants.FTP_INDEX);
-                } catch (ElasticsearchOperationsException e) {
-                    LOG.error("Something went wrong while inserting ftp file object into Elasticsearch database", e);
-                }
+            @Override
+            public void onFlushed() {
+                saveConfirmedRecords.run();
             }
+        };
+
+        ElasticsearchBulkIndexer indexer = bulkIndexerFactory.create(
+                manifestListener.andThen(deduplicator).andThen(progress).andThen(events));
+        try (FtpClient c = client; ElasticsearchBulkIndexer i = indexer) {
+            c.open();
+            ftpDownloadEngine.download(c, path, filters, remoteFile -> {
+                if (!readerFactory.isSupported(remoteFile.getFile().getName())) {
+                    LOG.debug("Skipped {} from {}: unsupported extension", remoteFile.getPath(), server);
+                    skippedFiles.incrementAndGet();
+                    return false;
+                }
+                FtpFileManifest record = manifest.get(remoteFile.getPath());
+                if (record != null && ftpManifestOperations.isUnchanged(record, remoteFile.getFile())) {
+                    linkedDocumentIds.add(record.getDocumentId());
+                    progress.documentLinked();
+                    return false;
+                }
+                return true;
+            }, (remotePath, remoteFile, content) -> {
+                HashingInputStream hashingContent = new HashingInputStream(content);
+                FTPFileData ftpFileData = readFile(server, remoteFile, hashingContent, skippedFiles);
+                FtpFileManifest record = manifest.get(remotePath);
+                if (ftpFileData == null && record == null) {
+                    // nothing is stored for the file, so the rest of its content is not needed
+                    return false;
+                }
+                String contentHash = hashingContent.finish();
+
+                if (record != null && record.getContentHash().equals(contentHash)) {
+                    confirmedRecords.add(ftpManifestOperations.createRecord(server, remotePath, remoteFile,
+                            contentHash, record.getDocumentId(), record));
+                    linkedDocumentIds.add(record.getDocumentId());
+                    progress.documentLinked();
+                } else if (ftpFileData != null) {
+                    ElasticsearchDocument ftpFileObject = new ElasticsearchDocument(requestNumber,
+                            getFtpUrl(ftpFileData.getServer(), path), ModelType.FILE, ftpFileData.getFilename(),
+                            ftpFileData.getText(), Collections.emptyList(), ftpFileData.getModificationDate());
+                    String duplicateId = deduplicator.findDuplicate(DataMinerConstants.FTP_INDEX,
+                            ftpFileObject.getId(), ftpFileData.getFilename(), ftpFileData.getText(),
+                            Collections.emptyList());
+                    if (duplicateId != null) {
+                        confirmedRecords.add(ftpManifestOperations.createRecord(server, remotePath,
+                                remoteFile, contentHash, duplicateId, record));
+                        linkedDocumentIds.add(duplicateId);
+                        progress.documentLinked();
+                        return true;
+                    }
+                    pendingRecords.put(ftpFileObject.getId(), ftpManifestOperations.createRecord(server,
+                            remotePath, remoteFile, contentHash, ftpFileObject.getId(), record));
+                    events.documentAdded(DataMinerConstants.FTP_INDEX, ftpFileObject.getId(),
+                            ftpFileData.getModificationDate());
+                    indexer.add(ftpFileObject, ftpFileObject.getId(), DataMinerConstants.FTP_INDEX);
+                }
+                return true;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CollectionException("Collection of files from " + server + " was interrupted", e);
         } catch (Exception e) {
-            LOG.error("Something went wrong while connecting to Elasticsearch", e);
+            throw new CollectionException("Could not collect files from " + server, e);
+        } finally {
+            saveConfirmedRecords.run();
+        }
+        checkIndexed(indexer, server, requestNumber);
+        LOG.info("{} unchanged or duplicate files of {} were linked to request {}, {} files of unsupported types were skipped",
+                linkedDocumentIds.size(), server, requestNumber, skippedFiles.get());
+        return linkedDocumentIds;
+    }
+
+    /**
+     * Extracts text from the file while it is being transferred from the FTP server. The text is extracted on the
+     * extraction thread pool
+     *
+     * @param server FTP server address
+     * @param remoteFile description of the file
+     * @param content file content
+     * @param skippedFiles counter of files skipped because their type is not supported
+     * @return file data, or null if the file can not be read
+     * @throws InterruptedIOException if the extraction has timed out or was interrupted, the transfer of the file
+     * has to be aborted
+     */
+    private FTPFileData readFile(String server, FTPFile remoteFile, InputStream content, AtomicInteger skippedFiles)
+            throws InterruptedIOException {
+        InputStream input = new BufferedInputStream(content);
+        Reader reader;
+        try {
+            reader = readerFactory.getReader(remoteFile.getName(), input);
+        } catch (ReaderNotFoundException e) {
+            LOG.debug("Skipped {} from {}: {}", remoteFile.getName(), server, e.getMessage());
+            skippedFiles.incrementAndGet();
+            return null;
+        }
+        try {
+            FTPFileData file = new FTPFileData();
+            file.setFilename(remoteFile.getName());
+            file.setServer(server);
+            file.setText(textExtractionExecutor.extract(reader, input, remoteFile.getName()));
+            file.setModificationDate(remoteFile.getTimestamp().toInstant()
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDate());
+            return file;
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            LOG.error("Could not read file {} from {}", remoteFile.getName(), server, e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks that Elasticsearch has accepted every document of the closed bulk indexer
+     *
+     * @param indexer closed bulk indexer
+     * @param source name of the source the documents were collected from
+     * @param requestNumber current request number (id)
+     * @throws CollectionException if some documents could not be indexed
+     */
+    private void checkIndexed(ElasticsearchBulkIndexer indexer, String source, String requestNumber) {
+        if (indexer.getFailedCount() > 0) {
+            throw new CollectionException(indexer.getFailedCount() + " documents from " + source
+                    + " could not be indexed for request " + requestNumber);
         }
     }
 
@@ -155,27 +362,15 @@ public class DataMinerService {
      * @param issuesDate latest Jira-issue date
      * @param issuesStatus relevant Jira-issue status
      * @param requestNumber current request number (id)
+     * @return ids of the already indexed documents with the same content as found Jira-issues
      */
-    public void addJiraIssuesUsingKeywords(String login, String password, String jiraUrl, List<String> keywords,
+    public List<String> addJiraIssuesUsingKeywords(String login, String password, String jiraUrl, List<String> keywords,
                                            String issuesDate, String issuesStatus, String requestNumber) {
-        List<SimpleIssue> simpleIssues = new JiraClientWorker(login, password, jiraUrl)
-                .getIssuesByKeywords(keywords, issuesDate, issuesStatus);
-
-        try (Connection connection = new Connection(properties)) {
-            connection.makeConnection();
-
-            ElasticsearchOperations elasticsearchOperations = new DocumentModelOperations(connection);
-
-            for (SimpleIssue simpleIssue : simpleIssues) {
-                ElasticsearchDocument jiraIssue = new ElasticsearchDocument(requestNumber,
-                        simpleIssue.getIssueWebLink(), ModelType.TICKET, simpleIssue.getTitle(), simpleIssue.getBody(),
-                        simpleIssue.getComments(), simpleIssue.getModificationDate());
-                elasticsearchOperations.insert(jiraIssue, jiraIssue.getId(), DataMinerConstants.JIRA_INDEX);
-            }
-        } catch (ElasticsearchOperationsException e) {
-            LOG.error("Something went wrong while inserting jira issue into Elasticsearch database", e);
-        } catch (Exception e) {
-            LOG.error("Something went wrong while connecting to Elasticsearch", e);
+        try (JiraClientRegistry.Lease lease = jiraClientRegistry.acquire(jiraUrl, login, password)) {
+            JiraClientWorker jiraClientWorker = new JiraClientWorker(lease.getClient(), jiraUrl,
+                    jiraCommentFetchParallelism, keywordQueryBuilder);
+            return addJiraIssues(jiraClientWorker.iterateIssuesByKeywords(keywords, issuesDate, issuesStatus,
+                    partitionJiraByProject), requestNumber);
         }
     }
 
@@ -187,26 +382,51 @@ public class DataMinerService {
      * @param jiraUrl Jira URL
      * @param jql user defined JQL to search Jira-issues
      * @param requestNumber current request number (id)
+     * @return ids of the already indexed documents with the same content as found Jira-issues
      */
-    public void addJiraIssuesUsingJql(String login, String password, String jiraUrl, String jql, String requestNumber) {
-        List<SimpleIssue> simpleIssues = new JiraClientWorker(login, password, jiraUrl).getIssuesByJql(jql);
-
-        try (Connection connection = new Connection(properties)) {
-            connection.makeConnection();
-
-            ElasticsearchOperations elasticsearchOperations = new DocumentModelOperations(connection);
+    public List<String> addJiraIssuesUsingJql(String login, String password, String jiraUrl, String jql, String requestNumber) {
+        try (JiraClientRegistry.Lease lease = jiraClientRegistry.acquire(jiraUrl, login, password)) {
+            return addJiraIssues(new JiraClientWorker(lease.getClient(), jiraUrl, jiraCommentFetchParallelism,
+                    keywordQueryBuilder).iterateIssuesByJql(jql, partitionJiraByProject), requestNumber);
+        }
+    }
 
-            for (SimpleIssue simpleIssue : simpleIssues) {
+    /**
+     * Adds Jira-issues to Elasticsearch database as they are found. Issues with the same content as an already
+     * indexed document are linked to the request instead
+     *
+     * @param simpleIssues found Jira-issues
+     * @param requestNumber current request number (id)
+     * @return ids of the already indexed documents with the same content as found Jira-issues
+     * @throws CollectionException if some Jira-issues could not be indexed
+     */
+    private List<String> addJiraIssues(Iterator<SimpleIssue> simpleIssues, String requestNumber) {
+        List<String> linkedDocumentIds = new ArrayList<>();
+        DocumentDeduplicator.Session deduplicator = documentDeduplicator.newSession();
+        SourceProgress progress = jobRegistry.getProgress(requestNumber, Source.JIRA);
+        DocumentEventPublisher.Session events = documentEventPublisher.newSession(requestNumber, Source.JIRA);
+        ElasticsearchBulkIndexer indexer = bulkIndexerFactory.create(deduplicator.andThen(progress).andThen(events));
+        try (ElasticsearchBulkIndexer i = indexer) {
+            while (simpleIssues.hasNext()) {
+                SimpleIssue simpleIssue = simpleIssues.next();
                 ElasticsearchDocument jiraIssue = new ElasticsearchDocument(requestNumber,
                         simpleIssue.getIssueWebLink(), ModelType.TICKET, simpleIssue.getTitle(), simpleIssue.getBody(),
                         simpleIssue.getComments(), simpleIssue.getModificationDate());
-                elasticsearchOperations.insert(jiraIssue, jiraIssue.getId(), DataMinerConstants.JIRA_INDEX);
+                String duplicateId = deduplicator.findDuplicate(DataMinerConstants.JIRA_INDEX, jiraIssue.getId(),
+                        simpleIssue.getTitle(), simpleIssue.getBody(), simpleIssue.getComments());
+                if (duplicateId != null) {
+                    linkedDocumentIds.add(duplicateId);
+                    progress.documentLinked();
+                } else {
+                    events.documentAdded(DataMinerConstants.JIRA_INDEX, jiraIssue.getId(),
+                            simpleIssue.getModificationDate());
+                    indexer.add(jiraIssue, jiraIssue.getId(), DataMinerConstants.JIRA_INDEX);
+                }
             }
-        } catch (ElasticsearchOperationsException e) {
-            LOG.error("Something went wrong while inserting jira issue into Elasticsearch database", e);
-        } catch (Exception e) {
-            LOG.error("Something went wrong while connecting to Elasticsearch", e);
         }
+        checkIndexed(indexer, "Jira", requestNumber);
+        LOG.info("{} duplicate Jira-issues were linked to request {}", linkedDocumentIds.size(), requestNumber);
+        return linkedDocumentIds;
     }
 
     /**
@@ -217,30 +437,12 @@ public class DataMinerService {
      * @param keywords keywords used to select the desired (relevant) Confluence-pages
      * @param pagesDate latest Confluence-page date
      * @param requestNumber current request number (id)
+     * @return ids of the already indexed documents with the same content as found Confluence-pages
      */
-    public void addConfluencePagesUsingKeywords(String token, String confluenceUrl, List<String> keywords,
+    public List<String> addConfluencePagesUsingKeywords(String token, String confluenceUrl, List<String> keywords,
                                                 String pagesDate, String requestNumber) {
-        try (Connection connection = new Connection(properties)) {
-            List<ConfluencePageModel> pageModels = new ConfluenceClient(confluenceUrl, token, objectMapper).
-                    findByKeywords(keywords, pagesDate);
-            connection.makeConnection();
-
-            ElasticsearchOperations elasticsearchOperations = new DocumentModelOperations(connection);
-
-            for (ConfluencePageModel confluencePageModel : pageModels) {
-                ElasticsearchDocument confluencePage = new ElasticsearchDocument(requestNumber,
-                        confluencePageModel.getWebLink(), ModelType.TICKET, confluencePageModel.getTitle(),
-                        confluencePageModel.getBody(), confluencePageModel.getComments(),
-                        confluencePageModel.getModificationDate());
-                elasticsearchOperations.insert(confluencePage, confluencePage.getId(), DataMinerConstants.CONFLUENCE_INDEX);
-            }
-        } catch (JsonProcessingException e) {
-            LOG.error("Something went wrong while processing JSON", e);
-        } catch (ElasticsearchOperationsException e) {
-            LOG.error("Something went wrong while inserting jira issue into Elasticsearch database", e);
-        } catch (Exception e) {
-            LOG.error("Something went wrong while connecting to Elasticsearch", e);
-        }
+        ConfluenceClient confluenceClient = confluenceClientFactory.createConfluenceClient(confluenceUrl, token);
+        return addConfluencePages(confluenceClient.searchByKeywords(keywords, pagesDate), requestNumber);
     }
 
     /**
@@ -250,28 +452,50 @@ public class DataMinerService {
      * @param confluenceUrl Confluence URL
      * @param cql user defined CQL to search Jira-issues
      * @param requestNumber current request number (id)
+     * @return ids of the already indexed documents with the same content as found Confluence-pages
      */
-    public void addConfluencePagesUsingCql(String token, String confluenceUrl, String cql, String requestNumber) {
-        try (Connection connection = new Connection(properties)) {
-            List<ConfluencePageModel> pageModels = new ConfluenceClient(confluenceUrl, token, objectMapper).
-                    findByCQL(cql);
-            connection.makeConnection();
-
-            ElasticsearchOperations elasticsearchOperations = new DocumentModelOperations(connection);
+    public List<String> addConfluencePagesUsingCql(String token, String confluenceUrl, String cql, String requestNumber) {
+        ConfluenceClient confluenceClient = confluenceClientFactory.createConfluenceClient(confluenceUrl, token);
+        return addConfluencePages(confluenceClient.searchByCQL(cql), requestNumber);
+    }
 
-            for (ConfluencePageModel confluencePageModel : pageModels) {
+    /**
+     * Adds Confluence-pages to Elasticsearch database as they arrive. Pages are consumed on the calling thread,
+     * the search requests the next result page when the already received pages are taken. Pages with the same
+     * content as an already indexed document are linked to the request instead
+     *
+     * @param pageModels found Confluence-pages
+     * @param requestNumber current request number (id)
+     * @return ids of the already indexed documents with the same content as found Confluence-pages
+     * @throws CollectionException if some Confluence-pages could not be indexed
+     */
+    private List<String> addConfluencePages(Flux<ConfluencePageModel> pageModels, String requestNumber) {
+        List<String> linkedDocumentIds = new ArrayList<>();
+        DocumentDeduplicator.Session deduplicator = documentDeduplicator.newSession();
+        SourceProgress progress = jobRegistry.getProgress(requestNumber, Source.CONFLUENCE);
+        DocumentEventPublisher.Session events = documentEventPublisher.newSession(requestNumber, Source.CONFLUENCE);
+        ElasticsearchBulkIndexer indexer = bulkIndexerFactory.create(deduplicator.andThen(progress).andThen(events));
+        try (ElasticsearchBulkIndexer i = indexer) {
+            for (ConfluencePageModel confluencePageModel : pageModels.toIterable()) {
                 ElasticsearchDocument confluencePage = new ElasticsearchDocument(requestNumber,
                         confluencePageModel.getWebLink(), ModelType.TICKET, confluencePageModel.getTitle(),
                         confluencePageModel.getBody(), confluencePageModel.getComments(),
                         confluencePageModel.getModificationDate());
-                elasticsearchOperations.insert(confluencePage, confluencePage.getId(), DataMinerConstants.CONFLUENCE_INDEX);
+                String duplicateId = deduplicator.findDuplicate(DataMinerConstants.CONFLUENCE_INDEX,
+                        confluencePage.getId(), confluencePageModel.getTitle(), confluencePageModel.getBody(),
+                        confluencePageModel.getComments());
+                if (duplicateId != null) {
+                    linkedDocumentIds.add(duplicateId);
+                    progress.documentLinked();
+                } else {
+                    events.documentAdded(DataMinerConstants.CONFLUENCE_INDEX, confluencePage.getId(),
+                            confluencePageModel.getModificationDate());
+                    indexer.add(confluencePage, confluencePage.getId(), DataMinerConstants.CONFLUENCE_INDEX);
+                }
             }
-        } catch (JsonProcessingException e) {
-            LOG.error("Something went wrong while processing JSON", e);
-        } catch (ElasticsearchOperationsException e) {
-            LOG.error("Something went wrong while inserting jira issue into Elasticsearch database", e);
-        } catch (Exception e) {
-            LOG.error("Something went wrong while connecting to Elasticsearch", e);
         }
+        checkIndexed(indexer, "Confluence", requestNumber);
+        LOG.info("{} duplicate Confluence-pages were linked to request {}", linkedDocumentIds.size(), requestNumber);
+        return linkedDocumentIds;
     }
 }
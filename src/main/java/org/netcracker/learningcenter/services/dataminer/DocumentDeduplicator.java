@@ -0,0 +1,232 @@
+package org.netcracker.learningcenter.services.dataminer;
+
+import org.netcracker.learningcenter.elasticsearch.BulkItem;
+import org.netcracker.learningcenter.elasticsearch.BulkItemListener;
+import org.netcracker.learningcenter.h2.fingerprints.operations.DocumentFingerprintOperations;
+import org.netcracker.learningcenter.utils.ContentHash;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds documents whose content has already been indexed. The content of every document is fingerprinted with
+ * a fast non-cryptographic hash, and fingerprints of indexed documents are kept in memory and in database, so
+ * a copy of a document found on another server or by another search is linked to the request instead of being
+ * indexed again. Only documents that Elasticsearch has confirmed are linked to, a copy found while the original
+ * is still being indexed is indexed as well
+ */
+@Component
+public class DocumentDeduplicator {
+
+    /**
+     * Character separating the parts of a document content in the fingerprint
+     */
+    private static final char PART_SEPARATOR = '\u0000';
+
+    /**
+     * Database operations with document fingerprints
+     */
+    private final DocumentFingerprintOperations documentFingerprintOperations;
+
+    /**
+     * Whether duplicate documents are searched for
+     */
+    private final boolean enabled;
+
+    /**
+     * Min length of a document content to be fingerprinted, shorter documents are always indexed
+     */
+    private final int minLength;
+
+    /**
+     * Recently used fingerprints of indexed documents mapped to the document ids
+     */
+    private final Map<String, String> recentFingerprints;
+
+    /**
+     * Creates a DocumentDeduplicator instance
+     *
+     * @param documentFingerprintOperations current DocumentFingerprintOperations instance
+     * @param enabled whether duplicate documents are searched for
+     * @param cacheSize max number of fingerprints kept in memory
+     * @param minLength min length of a document content to be fingerprinted
+     */
+    @Autowired
+    public DocumentDeduplicator(DocumentFingerprintOperations documentFingerprintOperations,
+                                @Value("${dedup.enabled}") boolean enabled,
+                                @Value("${dedup.cache-size}") int cacheSize,
+                                @Value("${dedup.min-length}") int minLength) {
+        this.documentFingerprintOperations = documentFingerprintOperations;
+        this.enabled = enabled;
+        this.minLength = minLength;
+        this.recentFingerprints = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a session that has to be registered as a listener of the bulk indexer the documents are added to.
+     * Fingerprints of the documents are saved only when Elasticsearch has confirmed the documents
+     *
+     * @return new session
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Calculates the fingerprint of a document content
+     *
+     * @param index Elasticsearch index the document is added to
+     * @param title document title
+     * @param body document body
+     * @param comments document comments
+     * @return fingerprint, or null if the content is too short to be fingerprinted
+     */
+    private String fingerprint(String index, String title, String body, List<String> comments) {
+        ContentHash hash = new ContentHash();
+        int length = 0;
+        length += update(hash, title);
+        length += update(hash, body);
+        for (String comment : comments) {
+            length += update(hash, comment);
+        }
+        return length < minLength ? null : index + ":" + hash.toHex() + ":" + Integer.toHexString(length);
+    }
+
+    /**
+     * Adds a part of the document content to the hash
+     *
+     * @param hash hash of the document content
+     * @param part part of the document content
+     * @return length of the part
+     */
+    private int update(ContentHash hash, String part) {
+        if (part == null) {
+            hash.update(PART_SEPARATOR);
+            return 0;
+        }
+        hash.update(part);
+        hash.update(PART_SEPARATOR);
+        return part.length();
+    }
+
+    /**
+     * Gets the id of the indexed document with the fingerprint
+     *
+     * @param fingerprint content fingerprint
+     * @return document id, or null if there is no such document
+     */
+    private String getIndexedDocumentId(String fingerprint) {
+        synchronized (recentFingerprints) {
+            String documentId = recentFingerprints.get(fingerprint);
+            if (documentId != null) {
+                return documentId;
+            }
+        }
+        String documentId = documentFingerprintOperations.getDocumentId(fingerprint);
+        if (documentId != null) {
+            remember(fingerprint, documentId);
+        }
+        return documentId;
+    }
+
+    /**
+     * Keeps the fingerprint of the indexed document in memory
+     *
+     * @param fingerprint content fingerprint
+     * @param documentId id of the document
+     */
+    private void remember(String fingerprint, String documentId) {
+        synchronized (recentFingerprints) {
+            recentFingerprints.put(fingerprint, documentId);
+        }
+    }
+
+    /**
+     * Saves the fingerprint of the indexed document, and forgets the fingerprints of its previous content. The
+     * fingerprint is not put in memory here, because another document may already have it, it is loaded from
+     * database when it is searched for
+     *
+     * @param fingerprint content fingerprint
+     * @param documentId id of the document
+     */
+    private void replace(String fingerprint, String documentId) {
+        List<String> removedFingerprints = documentFingerprintOperations.replace(fingerprint, documentId);
+        synchronized (recentFingerprints) {
+            for (String removedFingerprint : removedFingerprints) {
+                recentFingerprints.remove(removedFingerprint, documentId);
+            }
+        }
+    }
+
+    /**
+     * Searches for duplicates of the documents added to one bulk indexer
+     */
+    public class Session implements BulkItemListener {
+
+        /**
+         * Fingerprints of the documents added by this session mapped to the document ids
+         */
+        private final Map<String, String> addedDocuments = new ConcurrentHashMap<>();
+
+        /**
+         * Searches for an indexed document with the same content. If there is no such document, the document is
+         * expected to be added to the bulk indexer, and its fingerprint is saved when it has been indexed
+         *
+         * @param index Elasticsearch index the document is added to
+         * @param documentId id of the document
+         * @param title document title
+         * @param body document body
+         * @param comments document comments
+         * @return id of the document with the same content, or null if the document has to be indexed
+         */
+        public String findDuplicate(String index, String documentId, String title, String body,
+                                    List<String> comments) {
+            if (!enabled) {
+                return null;
+            }
+            String fingerprint = fingerprint(index, title, body, comments);
+            if (fingerprint == null) {
+                return null;
+            }
+            String duplicateId = getIndexedDocumentId(fingerprint);
+            if (duplicateId == null) {
+                addedDocuments.put(documentId, fingerprint);
+            }
+            return duplicateId;
+        }
+
+        /**
+         * Saves the fingerprint of the indexed document in place of the fingerprints of its previous content
+         *
+         * @param item indexed document
+         */
+        @Override
+        public void onIndexed(BulkItem item) {
+            String fingerprint = addedDocuments.remove(item.getId());
+            if (fingerprint != null) {
+                replace(fingerprint, item.getId());
+            }
+        }
+
+        /**
+         * Forgets the fingerprint of the document that was not indexed
+         *
+         * @param item document that was not indexed
+         * @param reason reason of the failure
+         */
+        @Override
+        public void onFailure(BulkItem item, String reason) {
+            addedDocuments.remove(item.getId());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.netcracker.learningcenter.services.dataminer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.enums.Source;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs collection tasks of the different sources in parallel. Every source has its own bounded thread pool, its own
+ * bounded queue and its own timeout, so one slow source does not hold back the others
+ */
+@Component
+public class SourceCollectorExecutor {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Thread pools of the sources
+     */
+    private final Map<Source, ExecutorService> executors = new EnumMap<>(Source.class);
+
+    /**
+     * Collection timeouts of the sources (in seconds)
+     */
+    private final Map<Source, Long> timeouts = new EnumMap<>(Source.class);
+
+    /**
+     * Max number of tasks waiting in the queue of every source
+     */
+    private final int queueCapacity;
+
+    /**
+     * Creates a SourceCollectorExecutor instance
+     *
+     * @param jiraThreads max number of Jira servers collected at the same time
+     * @param ftpThreads max number of FTP-servers collected at the same time
+     * @param confluenceThreads max number of Confluence servers collected at the same time
+     * @param jiraTimeout Jira collection timeout (in seconds)
+     * @param ftpTimeout FTP-server collection timeout (in seconds)
+     * @param confluenceTimeout Confluence collection timeout (in seconds)
+     * @param queueCapacity max number of tasks waiting in the queue of every source
+     */
+    @Autowired
+    public SourceCollectorExecutor(@Value("${data-miner.collector.jira.threads}") int jiraThreads,
+                                   @Value("${data-miner.collector.ftp.threads}") int ftpThreads,
+                                   @Value("${data-miner.collector.confluence.threads}") int confluenceThreads,
+                                   @Value("${data-miner.collector.jira.timeout}") long jiraTimeout,
+                                   @Value("${data-miner.collector.ftp.timeout}") long ftpTimeout,
+                                   @Value("${data-miner.collector.confluence.timeout}") long confluenceTimeout,
+                                   @Value("${data-miner.collector.queue-capacity}") int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        executors.put(Source.JIRA, createExecutor(Source.JIRA, jiraThreads));
+        executors.put(Source.FTP, createExecutor(Source.FTP, ftpThreads));
+        executors.put(Source.CONFLUENCE, createExecutor(Source.CONFLUENCE, confluenceThreads));
+
+        timeouts.put(Source.JIRA, jiraTimeout);
+        timeouts.put(Source.FTP, ftpTimeout);
+        timeouts.put(Source.CONFLUENCE, confluenceTimeout);
+    }
+
+    /**
+     * Creates a fixed size thread pool with a bounded queue for the source
+     *
+     * @param source source the pool is created for
+     * @param threads number of threads in the pool
+     * @return created thread pool
+     */
+    private ExecutorService createExecutor(Source source, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory(source.name().toLowerCase(Locale.ROOT) + "-collector-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Submits a collection task to the thread pool of the source
+     *
+     * @param source source the task collects data from
+     * @param task collection task
+     * @return Future of the submitted task
+     * @throws java.util.concurrent.RejectedExecutionException if the queue of the source is full
+     */
+    public Future<?> submit(Source source, Runnable task) {
+        CollectionTask collectionTask = new CollectionTask(task);
+        executors.get(source).execute(collectionTask);
+        return collectionTask;
+    }
+
+    /**
+     * Waits until every submitted task has finished or its source timeout has expired. The timeout of a task is
+     * counted from the moment the task starts, so time spent in the queue of the source is not included. Tasks that
+     * have not finished in time are cancelled and reported as failed
+     *
+     * @param tasks tasks submitted by {@link #submit}, grouped by source
+     * @return exceptions thrown by the failed tasks, a TimeoutException for every task that has timed out, and a
+     * CancellationException for every task that was cancelled
+     */
+    public List<Throwable> awaitAll(Map<Source, List<Future<?>>> tasks) {
+        boolean interrupted = false;
+        List<Throwable> failures = new ArrayList<>();
+
+        for (Map.Entry<Source, List<Future<?>>> entry : tasks.entrySet()) {
+            long timeout = TimeUnit.SECONDS.toNanos(timeouts.get(entry.getKey()));
+
+            for (Future<?> future : entry.getValue()) {
+                CollectionTask task = (CollectionTask) future;
+                if (interrupted) {
+                    task.cancel(true);
+                    continue;
+                }
+                try {
+                    await(task, timeout);
+                } catch (TimeoutException e) {
+                    task.cancel(true);
+                    LOG.warn("{} collection task has not finished in {} seconds and was cancelled",
+                            entry.getKey(), timeouts.get(entry.getKey()));
+                    failures.add(new TimeoutException(entry.getKey() + " collection task has not finished in "
+                            + timeouts.get(entry.getKey()) + " seconds"));
+                } catch (CancellationException e) {
+                    LOG.warn("{} collection task was cancelled", entry.getKey());
+                    failures.add(e);
+                } catch (ExecutionException e) {
+                    LOG.error("{} collection task has failed", entry.getKey(), e.getCause());
+                    failures.add(e.getCause());
+                } catch (InterruptedException e) {
+                    task.cancel(true);
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return failures;
+    }
+
+    /**
+     * Waits until the task has finished. While the task is queued it is waited for without a limit, once it has
+     * started it is waited for until the timeout counted from its start expires
+     *
+     * @param task submitted task
+     * @param timeout timeout of the task (in nanoseconds)
+     * @throws TimeoutException if the task has not finished in time
+     * @throws ExecutionException if the task has failed
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    private void await(CollectionTask task, long timeout)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        while (true) {
+            long remaining = task.started ? task.startTime + timeout - System.nanoTime() : timeout;
+            try {
+                task.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                return;
+            } catch (TimeoutException e) {
+                if (task.started && System.nanoTime() - task.startTime >= timeout) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Shuts down all thread pools
+     */
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    /**
+     * Collection task that records the moment it has started
+     */
+    private static final class CollectionTask extends FutureTask<Void> {
+        private volatile long startTime;
+        private volatile boolean started;
+
+        private CollectionTask(Runnable task) {
+            super(task, null);
+        }
+
+        @Override
+        public void run() {
+            startTime = System.nanoTime();
+            started = true;
+            super.run();
+        }
+    }
+}
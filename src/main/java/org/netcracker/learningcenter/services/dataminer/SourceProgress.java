@@ -0,0 +1,89 @@
+package org.netcracker.learningcenter.services.dataminer;
+
+import org.netcracker.learningcenter.elasticsearch.BulkItem;
+import org.netcracker.learningcenter.elasticsearch.BulkItemListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of data collection from one source. It is registered as a listener of the bulk indexers, so indexed and
+ * failed documents are counted when Elasticsearch has answered
+ */
+public class SourceProgress implements BulkItemListener {
+
+    /**
+     * Number of started collection tasks (one task per server)
+     */
+    private final AtomicInteger tasks = new AtomicInteger();
+
+    /**
+     * Number of finished collection tasks
+     */
+    private final AtomicInteger completedTasks = new AtomicInteger();
+
+    /**
+     * Number of documents indexed into Elasticsearch
+     */
+    private final AtomicInteger indexedDocuments = new AtomicInteger();
+
+    /**
+     * Number of already indexed documents linked to the request
+     */
+    private final AtomicInteger linkedDocuments = new AtomicInteger();
+
+    /**
+     * Number of documents that could not be indexed
+     */
+    private final AtomicInteger failedDocuments = new AtomicInteger();
+
+    /**
+     * Counts a started collection task
+     */
+    public void taskStarted() {
+        tasks.incrementAndGet();
+    }
+
+    /**
+     * Counts a finished collection task
+     */
+    public void taskCompleted() {
+        completedTasks.incrementAndGet();
+    }
+
+    /**
+     * Counts an already indexed document linked to the request
+     */
+    public void documentLinked() {
+        linkedDocuments.incrementAndGet();
+    }
+
+    @Override
+    public void onIndexed(BulkItem item) {
+        indexedDocuments.incrementAndGet();
+    }
+
+    @Override
+    public void onFailure(BulkItem item, String reason) {
+        failedDocuments.incrementAndGet();
+    }
+
+    public int getTasks() {
+        return tasks.get();
+    }
+
+    public int getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    public int getIndexedDocuments() {
+        return indexedDocuments.get();
+    }
+
+    public int getLinkedDocuments() {
+        return linkedDocuments.get();
+    }
+
+    public int getFailedDocuments() {
+        return failedDocuments.get();
+    }
+}
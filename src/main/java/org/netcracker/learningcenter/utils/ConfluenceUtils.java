@@ -19,9 +19,12 @@ public class ConfluenceUtils {
     public static final String RESULT_PATH = "results";
     public static final String LINKS_PATH = "_links";
     public static final String WEBUI_PATH = "webui";
+    public static final String NEXT_PATH = "next";
+    public static final String BASE_PATH = "base";
     public static final String TITLE_PATH = "title";
     public static final String EXPAND = "expand";
     public static final String CQL = "cql";
+    public static final String LIMIT = "limit";
     public static final String HISTORY = "history";
     public static final String LAST_UPDATED = "lastUpdated";
     public static final String WHEN = "when";
@@ -0,0 +1,50 @@
+package org.netcracker.learningcenter.utils;
+
+/**
+ * Incremental 64-bit FNV-1a hash of a file content or a text. It is not cryptographic, it is only used to notice that
+ * a content has changed
+ */
+public class ContentHash {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    /**
+     * @param b byte to add to the hash
+     */
+    public void update(int b) {
+        hash ^= b & 0xff;
+        hash *= PRIME;
+    }
+
+    /**
+     * @param bytes buffer with the bytes to add to the hash
+     * @param offset offset of the first byte
+     * @param length number of bytes
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= PRIME;
+        }
+    }
+
+    /**
+     * @param chars characters to add to the hash, every character is added as two bytes
+     */
+    public void update(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            update(c >>> 8);
+            update(c);
+        }
+    }
+
+    /**
+     * @return hash of the bytes added so far as a 16-digit hex string
+     */
+    public String toHex() {
+        return String.format("%016x", hash);
+    }
+}
@@ -1,12 +1,20 @@
 package org.netcracker.learningcenter.utils;
 
-import org.apache.commons.net.PrintCommandListener;
+import org.apache.commons.net.ProtocolCommandEvent;
+import org.apache.commons.net.ProtocolCommandListener;
 import org.apache.commons.net.ftp.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.netcracker.learningcenter.exceptions.InvalidCredentialsException;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.List;
 
 public class FtpClient implements AutoCloseable {
+    private static final Logger LOG = LogManager.getLogger();
+    private static final int DRAIN_BUFFER_SIZE = 8192;
+    private static final int DATA_TIMEOUT_MILLIS = 60000;
     private String server;
     private int port;
     private String user;
@@ -23,8 +31,11 @@ public class FtpClient implements AutoCloseable {
 
     public void open() throws IOException {
         ftp = new FTPClient();
+        ftp.setDataTimeout(DATA_TIMEOUT_MILLIS);
 
-        ftp.addProtocolCommandListener(new PrintCommandListener(new PrintWriter(System.out)));
+        if (LOG.isDebugEnabled()) {
+            ftp.addProtocolCommandListener(new LoggingCommandListener());
+        }
 
         ftp.connect(server, port);
         ftp.enterLocalPassiveMode();
@@ -34,8 +45,11 @@ public class FtpClient implements AutoCloseable {
             throw new IOException("Exception in connecting to FTP Server");
         }
 
-        ftp.login(user, password);
-
+        if (!ftp.login(user, password)) {
+            ftp.disconnect();
+            throw new InvalidCredentialsException("FTP Server " + server + " has rejected the login of " + user);
+        }
+        ftp.setFileType(FTP.BINARY_FILE_TYPE);
     }
 
     private void downloadFile(String source, FTPFile file, String pathToDownload) throws IOException {
@@ -69,6 +83,77 @@ public class FtpClient implements AutoCloseable {
         }
     }
 
+    /**
+     * Method lists files of the directory and all its subdirectories on the FTP server
+     *
+     * @param path    path to the directory on the FTP server
+     * @param filters a list of filters by which the file is checked
+     * @return files that match all filters
+     */
+    public List<FtpRemoteFile> listFiles(String path, List<FTPFileFilter> filters) throws IOException {
+        List<FtpRemoteFile> files = new ArrayList<>();
+        listFiles(path, filters, files);
+        return files;
+    }
+
+    private void listFiles(String path, List<FTPFileFilter> filters, List<FtpRemoteFile> files) throws IOException {
+        FTPFile[] remoteFiles = ftp.listFiles(path);
+        for (FTPFile remoteFile : remoteFiles) {
+            if (!remoteFile.getName().equals(".") && !remoteFile.getName().equals("..")) {
+                String remoteFilePath = path + "/" + remoteFile.getName();
+                if (remoteFile.isDirectory()) {
+                    listFiles(remoteFilePath, filters, files);
+                } else {
+                    if (isSuitableByFilters(filters, remoteFile)) {
+                        files.add(new FtpRemoteFile(remoteFilePath, remoteFile));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Transfers one file to the consumer. The rest of the content the consumer has not read is drained, so the
+     * transfer completes normally and the control connection can be used for the next file. If the consumer does
+     * not need the rest of the content, the transfer is aborted instead
+     *
+     * @param source   path to the file on the FTP server
+     * @param file     description of the file
+     * @param consumer consumer of the file content
+     */
+    public void streamFile(String source, FTPFile file, FtpFileConsumer consumer) throws IOException {
+        InputStream content = ftp.retrieveFileStream(source);
+        if (content == null) {
+            throw new IOException("Could not retrieve " + source + ": " + ftp.getReplyString());
+        }
+        boolean needed = true;
+        try (InputStream is = new BufferedInputStream(content)) {
+            needed = consumer.accept(source, file, new FilterInputStream(is) {
+                @Override
+                public void close() {
+                }
+            });
+            if (needed) {
+                drain(is);
+            }
+        } finally {
+            if (!needed) {
+                // the data connection is closed already, the server answers both the transfer and the ABOR
+                ftp.abort();
+                ftp.completePendingCommand();
+            } else if (!ftp.completePendingCommand()) {
+                LOG.warn("Transfer of {} has not completed: {}", source, ftp.getReplyString());
+            }
+        }
+    }
+
+    private void drain(InputStream is) throws IOException {
+        byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+        while (is.read(buffer) != -1) {
+            // skip the content the consumer has not read
+        }
+    }
+
     /**
      * The method checks the file against the specified filters
      *
@@ -85,10 +170,37 @@ public class FtpClient implements AutoCloseable {
         return true;
     }
 
+    /**
+     * @return new not opened client with the same connection parameters
+     */
+    public FtpClient newSession() {
+        return new FtpClient(server, port, user, password);
+    }
+
     public String getServer() {
         return server;
     }
 
+    /**
+     * Logs the commands and replies of the control connection at debug level. The login and password are not logged
+     */
+    private class LoggingCommandListener implements ProtocolCommandListener {
+        @Override
+        public void protocolCommandSent(ProtocolCommandEvent event) {
+            String command = event.getCommand();
+            if ("USER".equalsIgnoreCase(command) || "PASS".equalsIgnoreCase(command)) {
+                LOG.debug("{} > {} *******", server, command);
+            } else {
+                LOG.debug("{} > {}", server, event.getMessage().trim());
+            }
+        }
+
+        @Override
+        public void protocolReplyReceived(ProtocolCommandEvent event) {
+            LOG.debug("{} < {}", server, event.getMessage().trim());
+        }
+    }
+
     @Override
     public void close() throws Exception {
         ftp.logout();
@@ -0,0 +1,24 @@
+package org.netcracker.learningcenter.utils;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumer of a file streamed from the FTP server
+ */
+@FunctionalInterface
+public interface FtpFileConsumer {
+
+    /**
+     * Consumes the content of the file while it is being transferred
+     *
+     * @param remotePath path to the file on the FTP server
+     * @param file       description of the file
+     * @param content    file content, it is closed by the FtpClient
+     * @return false if the rest of the content is not needed, the transfer is aborted then instead of being
+     * completed
+     */
+    boolean accept(String remotePath, FTPFile file, InputStream content) throws IOException;
+}
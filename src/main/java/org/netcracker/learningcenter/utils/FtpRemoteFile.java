@@ -0,0 +1,24 @@
+package org.netcracker.learningcenter.utils;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+/**
+ * File found on the FTP server together with its full path
+ */
+public class FtpRemoteFile {
+    private final String path;
+    private final FTPFile file;
+
+    public FtpRemoteFile(String path, FTPFile file) {
+        this.path = path;
+        this.file = file;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public FTPFile getFile() {
+        return file;
+    }
+}
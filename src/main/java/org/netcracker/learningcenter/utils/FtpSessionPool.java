@@ -0,0 +1,129 @@
+package org.netcracker.learningcenter.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Pool of logged-in sessions to one FTP server. Sessions are opened on demand, up to the pool size, and are
+ * reused by the next transfers
+ */
+public class FtpSessionPool implements AutoCloseable {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Client whose connection parameters are used to open new sessions
+     */
+    private final FtpClient prototype;
+
+    /**
+     * Max number of sessions
+     */
+    private final int size;
+
+    /**
+     * Opened sessions that are not used right now
+     */
+    private final Deque<FtpClient> idle = new ArrayDeque<>();
+
+    /**
+     * Number of opened sessions
+     */
+    private int opened;
+
+    private boolean closed;
+
+    /**
+     * Creates a FtpSessionPool instance
+     *
+     * @param prototype client whose connection parameters are used to open new sessions
+     * @param size      max number of sessions
+     */
+    public FtpSessionPool(FtpClient prototype, int size) {
+        this.prototype = prototype;
+        this.size = size;
+    }
+
+    /**
+     * Takes an idle session. A new session is opened if there is no idle one and the pool is not full,
+     * otherwise the method waits until a session is released
+     *
+     * @return logged-in session
+     */
+    public FtpClient borrow() throws IOException, InterruptedException {
+        synchronized (this) {
+            while (idle.isEmpty() && opened >= size && !closed) {
+                wait();
+            }
+            if (closed) {
+                throw new IOException("FTP session pool of " + prototype.getServer() + " is closed");
+            }
+            if (!idle.isEmpty()) {
+                return idle.pop();
+            }
+            opened++;
+        }
+        FtpClient session = prototype.newSession();
+        try {
+            session.open();
+            return session;
+        } catch (IOException | RuntimeException e) {
+            discard(session);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the session to the pool
+     *
+     * @param session session taken from the pool
+     * @param broken  true if the session must not be reused (e.g. the transfer has failed)
+     */
+    public void release(FtpClient session, boolean broken) {
+        synchronized (this) {
+            if (!broken && !closed) {
+                idle.push(session);
+                notifyAll();
+                return;
+            }
+        }
+        discard(session);
+    }
+
+    /**
+     * Closes all idle sessions. Sessions in use are closed when they are released
+     */
+    @Override
+    public void close() {
+        List<FtpClient> sessions;
+        synchronized (this) {
+            closed = true;
+            sessions = new ArrayList<>(idle);
+            opened -= idle.size();
+            idle.clear();
+            notifyAll();
+        }
+        sessions.forEach(this::closeSession);
+    }
+
+    private void discard(FtpClient session) {
+        closeSession(session);
+        synchronized (this) {
+            opened--;
+            notifyAll();
+        }
+    }
+
+    private void closeSession(FtpClient session) {
+        try {
+            session.close();
+        } catch (Exception e) {
+            LOG.warn("Could not close FTP session to {}", session.getServer(), e);
+        }
+    }
+}
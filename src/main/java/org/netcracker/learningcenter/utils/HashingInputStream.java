@@ -0,0 +1,80 @@
+package org.netcracker.learningcenter.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that computes the ContentHash of all bytes read through it
+ */
+public class HashingInputStream extends FilterInputStream {
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final ContentHash hash = new ContentHash();
+
+    public HashingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            hash.update(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            hash.update(b, off, read);
+        }
+        return read;
+    }
+
+    /**
+     * Skipped bytes are read, so they are hashed as well
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, Math.max(n, 1))];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Reads the rest of the stream, so the hash covers the whole content
+     *
+     * @return hash of the whole content
+     */
+    public String finish() throws IOException {
+        byte[] buffer = new byte[SKIP_BUFFER_SIZE];
+        while (read(buffer, 0, buffer.length) != -1) {
+            // hash the content the reader has not read
+        }
+        return hash.toHex();
+    }
+}
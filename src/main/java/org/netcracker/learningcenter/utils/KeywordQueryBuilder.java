@@ -0,0 +1,90 @@
+package org.netcracker.learningcenter.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Builds keyword conditions for JQL and CQL searches. Keywords are combined with OR into as few conditions as the
+ * max query length allows, or, if per-keyword relevance is needed, every keyword gets its own condition
+ */
+public class KeywordQueryBuilder {
+
+    /**
+     * Operator combining keyword conditions
+     */
+    private static final String OR = " OR ";
+
+    /**
+     * Whether keywords are combined into one condition
+     */
+    private final boolean combineKeywords;
+
+    /**
+     * Max length of one combined condition
+     */
+    private final int maxQueryLength;
+
+    /**
+     * Creates a KeywordQueryBuilder instance
+     *
+     * @param combineKeywords true to combine keywords with OR, false to build one condition per keyword
+     * @param maxQueryLength max length of one combined condition
+     */
+    public KeywordQueryBuilder(boolean combineKeywords, int maxQueryLength) {
+        this.combineKeywords = combineKeywords;
+        this.maxQueryLength = maxQueryLength;
+    }
+
+    /**
+     * Builds keyword conditions, e.g. (text ~ "first" OR text ~ "second")
+     *
+     * @param keywords keywords to search for
+     * @param fieldPrefix field and operator written before every keyword, e.g. text ~
+     * @return conditions, every one of them has to be searched separately
+     */
+    public List<String> build(List<String> keywords, String fieldPrefix) {
+        List<String> conditions = new ArrayList<>();
+        StringBuilder combined = new StringBuilder();
+        int combinedCount = 0;
+
+        for (String keyword : new LinkedHashSet<>(keywords)) {
+            String condition = fieldPrefix + quote(keyword);
+            if (!combineKeywords) {
+                conditions.add(condition);
+                continue;
+            }
+            if (combinedCount > 0 && combined.length() + OR.length() + condition.length() + 2 > maxQueryLength) {
+                conditions.add(wrap(combined, combinedCount));
+                combined.setLength(0);
+                combinedCount = 0;
+            }
+            if (combinedCount > 0) {
+                combined.append(OR);
+            }
+            combined.append(condition);
+            combinedCount++;
+        }
+        if (combinedCount > 0) {
+            conditions.add(wrap(combined, combinedCount));
+        }
+        return conditions;
+    }
+
+    /**
+     * @param combined combined conditions
+     * @param count number of combined conditions
+     * @return combined conditions in brackets, if there are several of them
+     */
+    private String wrap(StringBuilder combined, int count) {
+        return count > 1 ? "(" + combined + ")" : combined.toString();
+    }
+
+    /**
+     * @param keyword keyword to quote
+     * @return keyword in double quotes with escaped quotes and backslashes
+     */
+    private String quote(String keyword) {
+        return "\"" + keyword.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}